@@ -0,0 +1,111 @@
+package net.io_0.caja;
+
+import net.io_0.caja.models.ComplexKey;
+import net.io_0.caja.models.ComplexValue;
+import net.io_0.caja.models.Nested;
+import net.io_0.caja.redis.JsonObjectCodec;
+import net.io_0.caja.redis.KeyOrWildcard;
+import net.io_0.caja.serialization.JsonValueSerializer;
+import net.io_0.caja.serialization.KryoValueSerializer;
+import net.io_0.caja.serialization.ValueSerializer;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Encoding and decoding of keys and values of remote caches, simple types and records vs. POJOs, per value serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+  private static final KeyOrWildcard<String> SIMPLE_KEY = KeyOrWildcard.key("simple key");
+  private static final Integer SIMPLE_VALUE = 42;
+  private static final KeyOrWildcard<RecordKey> RECORD_KEY = KeyOrWildcard.key(new RecordKey(7, 1234567890L));
+  private static final KeyOrWildcard<ComplexKey> COMPLEX_KEY = KeyOrWildcard.key(new ComplexKey("k1", 1, new Nested(true, List.of(1, 2, 3))));
+  private static final ComplexValue COMPLEX_VALUE = new ComplexValue(1L, BigDecimal.TEN, LocalDateTime.now(), new Nested(true, List.of(10, 20, 30)));
+
+  @Param({"JSON", "KRYO"})
+  private String valueSerializer;
+
+  private JsonObjectCodec<String, KeyOrWildcard<String>, Integer> simpleCodec;
+  private JsonObjectCodec<RecordKey, KeyOrWildcard<RecordKey>, Integer> recordCodec;
+  private JsonObjectCodec<ComplexKey, KeyOrWildcard<ComplexKey>, ComplexValue> complexCodec;
+  private ByteBuffer simpleKey;
+  private ByteBuffer simpleValue;
+  private ByteBuffer recordKey;
+  private ByteBuffer complexKey;
+  private ByteBuffer complexValue;
+
+  @Setup
+  public void setup() {
+    ValueSerializer serializer = "KRYO".equals(valueSerializer) ? new KryoValueSerializer(ComplexValue.class, Nested.class, BigDecimal.class, LocalDateTime.class) : new JsonValueSerializer();
+    simpleCodec = new JsonObjectCodec<>("benchmark", String.class, Integer.class, serializer);
+    recordCodec = new JsonObjectCodec<>("benchmark", RecordKey.class, Integer.class, serializer);
+    complexCodec = new JsonObjectCodec<>("benchmark", ComplexKey.class, ComplexValue.class, serializer);
+    simpleKey = simpleCodec.encodeKey(SIMPLE_KEY);
+    simpleValue = simpleCodec.encodeValue(SIMPLE_VALUE);
+    recordKey = recordCodec.encodeKey(RECORD_KEY);
+    complexKey = complexCodec.encodeKey(COMPLEX_KEY);
+    complexValue = complexCodec.encodeValue(COMPLEX_VALUE);
+  }
+
+  @Benchmark
+  public ByteBuffer encodeSimpleKey() {
+    return simpleCodec.encodeKey(SIMPLE_KEY);
+  }
+
+  @Benchmark
+  public KeyOrWildcard<String> decodeSimpleKey() {
+    return simpleCodec.decodeKey(simpleKey.duplicate());
+  }
+
+  @Benchmark
+  public ByteBuffer encodeSimpleValue() {
+    return simpleCodec.encodeValue(SIMPLE_VALUE);
+  }
+
+  @Benchmark
+  public Integer decodeSimpleValue() {
+    return simpleCodec.decodeValue(simpleValue.duplicate());
+  }
+
+  @Benchmark
+  public ByteBuffer encodeRecordKey() {
+    return recordCodec.encodeKey(RECORD_KEY);
+  }
+
+  @Benchmark
+  public KeyOrWildcard<RecordKey> decodeRecordKey() {
+    return recordCodec.decodeKey(recordKey.duplicate());
+  }
+
+  @Benchmark
+  public ByteBuffer encodeComplexKey() {
+    return complexCodec.encodeKey(COMPLEX_KEY);
+  }
+
+  @Benchmark
+  public KeyOrWildcard<ComplexKey> decodeComplexKey() {
+    return complexCodec.decodeKey(complexKey.duplicate());
+  }
+
+  @Benchmark
+  public ByteBuffer encodeComplexValue() {
+    return complexCodec.encodeValue(COMPLEX_VALUE);
+  }
+
+  @Benchmark
+  public ComplexValue decodeComplexValue() {
+    return complexCodec.decodeValue(complexValue.duplicate());
+  }
+
+  public record RecordKey(int tenant, long id) {}
+}
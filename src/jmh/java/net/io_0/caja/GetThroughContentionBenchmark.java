@@ -0,0 +1,60 @@
+package net.io_0.caja;
+
+import net.io_0.caja.configuration.LocalCacheConfig;
+import net.io_0.caja.sync.Cache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Reads through by many threads at once, of one hot key or spread over many keys. Values expire every second, so
+ * the threads keep missing together and exercise the collapsing of concurrent loads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GetThroughContentionBenchmark {
+  private static final Supplier<String> EXPENSIVE_SUPPLIER = () -> {
+    Blackhole.consumeCPU(10_000);
+    return "loaded value";
+  };
+
+  @Param({"1", "1000"})
+  private int keyCount;
+
+  private CacheManager cacheManager;
+  private Cache<Integer, String> syncCache;
+  private net.io_0.caja.async.Cache<Integer, String> asyncCache;
+  private Integer[] keys;
+
+  @Setup
+  public void setup() {
+    cacheManager = new CacheManager(new LocalCacheConfig().setHeap(keyCount).setTtlInSeconds(1));
+    syncCache = cacheManager.getAsSync("benchmark", Integer.class, String.class);
+    asyncCache = cacheManager.getAsAsync("benchmark", Integer.class, String.class);
+    keys = IntStream.range(0, keyCount).boxed().toArray(Integer[]::new);
+  }
+
+  @TearDown
+  public void tearDown() {
+    cacheManager.close();
+  }
+
+  @Benchmark
+  public String syncGetThrough(KeyCursor cursor) {
+    return syncCache.getThrough(cursor.next(keys), EXPENSIVE_SUPPLIER);
+  }
+
+  @Benchmark
+  public String asyncGetThroughFuture(KeyCursor cursor) {
+    return asyncCache.getThroughFuture(cursor.next(keys), () -> supplyAsync(EXPENSIVE_SUPPLIER)).join();
+  }
+}
@@ -0,0 +1,17 @@
+package net.io_0.caja;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Walks through prepared keys, each benchmark thread on its own.
+ */
+@State(Scope.Thread)
+public class KeyCursor {
+  private int index;
+
+  <K> K next(K[] keys) {
+    index = index + 1 < keys.length ? index + 1 : 0;
+    return keys[index];
+  }
+}
@@ -0,0 +1,63 @@
+package net.io_0.caja;
+
+import net.io_0.caja.configuration.LocalCacheConfig;
+import net.io_0.caja.sync.Cache;
+import org.openjdk.jmh.annotations.*;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Gets and puts of local caches, sync and async, at various heap sizes. All keys are cached, so gets are hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalCacheBenchmark {
+  private static final String VALUE = "value";
+
+  @Param({"100", "10000", "100000"})
+  private int heap;
+
+  private CacheManager cacheManager;
+  private Cache<Integer, String> syncCache;
+  private net.io_0.caja.async.Cache<Integer, String> asyncCache;
+  private Integer[] keys;
+
+  @Setup
+  public void setup() {
+    cacheManager = new CacheManager(new LocalCacheConfig().setHeap(heap).setTtlInSeconds(3600));
+    syncCache = cacheManager.getAsSync("benchmark", Integer.class, String.class);
+    asyncCache = cacheManager.getAsAsync("benchmark", Integer.class, String.class);
+    keys = IntStream.range(0, heap).boxed().toArray(Integer[]::new);
+    for (Integer key : keys) syncCache.put(key, VALUE);
+  }
+
+  @TearDown
+  public void tearDown() {
+    cacheManager.close();
+  }
+
+  @Benchmark
+  public String syncGet(KeyCursor cursor) {
+    return syncCache.get(cursor.next(keys));
+  }
+
+  @Benchmark
+  public void syncPut(KeyCursor cursor) {
+    syncCache.put(cursor.next(keys), VALUE);
+  }
+
+  @Benchmark
+  public String asyncGet(KeyCursor cursor) {
+    return asyncCache.get(cursor.next(keys)).join();
+  }
+
+  @Benchmark
+  public void asyncPut(KeyCursor cursor) {
+    asyncCache.put(cursor.next(keys), VALUE).join();
+  }
+}
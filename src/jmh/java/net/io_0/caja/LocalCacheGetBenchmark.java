@@ -0,0 +1,55 @@
+package net.io_0.caja;
+
+import net.io_0.caja.configuration.LocalCacheConfig;
+import net.io_0.caja.sync.Cache;
+import org.openjdk.jmh.annotations.*;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Hits of local sync caches. Run with the gc profiler, {@code gc.alloc.rate.norm} (bytes allocated per operation) is
+ * about 0 for every benchmark, only the last iteration sees the allocations of closing the cache manager.
+ * {@code LocalCacheAllocationTest} asserts the same in the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalCacheGetBenchmark {
+  private static final String KEY = "key";
+  private static final Supplier<String> SUPPLIER = () -> "loaded value";
+
+  private CacheManager cacheManager;
+  private Cache<String, String> cache;
+
+  @Setup
+  public void setup() {
+    // default log level DEBUG, while the logger only logs INFO, as usual in production
+    cacheManager = new CacheManager(new LocalCacheConfig().setHeap(100).setTtlInSeconds(3600));
+    cache = cacheManager.getAsSync("benchmark", String.class, String.class);
+    cache.put(KEY, "value");
+  }
+
+  @TearDown
+  public void tearDown() {
+    cacheManager.close();
+  }
+
+  @Benchmark
+  public String getHit() {
+    return cache.get(KEY);
+  }
+
+  @Benchmark
+  public String getThroughHit() {
+    return cache.getThrough(KEY, SUPPLIER);
+  }
+
+  @Benchmark
+  public boolean containsKeyHit() {
+    return cache.containsKey(KEY);
+  }
+}
@@ -0,0 +1,84 @@
+package net.io_0.caja;
+
+import net.io_0.caja.configuration.RemoteCacheConfig;
+import net.io_0.caja.models.ComplexValue;
+import net.io_0.caja.models.Nested;
+import net.io_0.caja.sync.Cache;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Operations of remote caches against a running Redis, e.g. the one of the docker compose setup. Another server can be
+ * benchmarked by setting the parameter {@code host}, e.g. via {@code benchmarkParameters} of the jmh build block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteCacheBenchmark {
+  private static final int KEY_COUNT = 1000;
+  private static final int BULK_SIZE = 10;
+  private static final ComplexValue VALUE = new ComplexValue(1L, BigDecimal.TEN, LocalDateTime.now(), new Nested(true, List.of(10, 20, 30)));
+
+  @Param({"redis://localhost:6379/0"})
+  private String host;
+
+  private CacheManager cacheManager;
+  private Cache<String, ComplexValue> syncCache;
+  private net.io_0.caja.async.Cache<String, ComplexValue> asyncCache;
+  private String[] keys;
+  private List<String>[] bulks;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    cacheManager = new CacheManager(new RemoteCacheConfig().setHost(host).setTtlInSeconds(3600));
+    syncCache = cacheManager.getAsSync("benchmark", String.class, ComplexValue.class);
+    asyncCache = cacheManager.getAsAsync("benchmark", String.class, ComplexValue.class);
+    keys = IntStream.range(0, KEY_COUNT).mapToObj(i -> "key " + i).toArray(String[]::new);
+    bulks = IntStream.range(0, KEY_COUNT / BULK_SIZE)
+      .mapToObj(i -> Arrays.asList(keys).subList(i * BULK_SIZE, (i + 1) * BULK_SIZE))
+      .toArray(List[]::new);
+    for (String key : keys) syncCache.put(key, VALUE);
+  }
+
+  @TearDown
+  public void tearDown() {
+    syncCache.clear();
+    cacheManager.close();
+  }
+
+  @Benchmark
+  public ComplexValue syncGet(KeyCursor cursor) {
+    return syncCache.get(cursor.next(keys));
+  }
+
+  @Benchmark
+  public void syncPut(KeyCursor cursor) {
+    syncCache.put(cursor.next(keys), VALUE);
+  }
+
+  @Benchmark
+  public Map<String, ComplexValue> syncGetAll(KeyCursor cursor) {
+    return syncCache.getAll(cursor.next(bulks));
+  }
+
+  @Benchmark
+  public ComplexValue asyncGet(KeyCursor cursor) {
+    return asyncCache.get(cursor.next(keys)).join();
+  }
+
+  @Benchmark
+  public void asyncPut(KeyCursor cursor) {
+    asyncCache.put(cursor.next(keys), VALUE).join();
+  }
+}
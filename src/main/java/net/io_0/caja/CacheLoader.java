@@ -0,0 +1,38 @@
+package net.io_0.caja;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Loads values of a cache from their source, for the caller of {@code getThrough(key)} and
+ * {@code getAllThrough(keys)}. Registered with a cache via {@link CacheManager.Context}.
+ *
+ * @param <K> the key type for the cache
+ * @param <V> the value type for the cache
+ */
+public interface CacheLoader<K, V> {
+  /**
+   * @param key the key to load the value for
+   * @return the value of the key, {@code null} if there is none
+   */
+  V load(K key);
+
+  /**
+   * Loads the values of the given keys, one by one unless overridden. Override it to load all of them with one call
+   * to the source, reads through many keys load the missing ones at once.
+   *
+   * @param keys the keys to load the values for
+   * @return the values of the keys, keys without value are absent
+   */
+  default Map<K, V> loadAll(Collection<K> keys) {
+    Map<K, V> values = new HashMap<>();
+    for (K key : keys) {
+      V value = load(key);
+      if (nonNull(value)) values.put(key, value);
+    }
+    return values;
+  }
+}
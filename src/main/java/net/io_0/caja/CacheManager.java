@@ -4,10 +4,10 @@ import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.ReadFrom;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulConnection;
 import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.async.RedisAsyncCommands;
-import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.masterreplica.MasterReplica;
 import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
 import lombok.Builder;
@@ -16,29 +16,68 @@ import lombok.extern.slf4j.Slf4j;
 import net.io_0.caja.configuration.CacheConfig;
 import net.io_0.caja.configuration.CacheManagerConfig;
 import net.io_0.caja.configuration.LocalCacheConfig;
+import net.io_0.caja.configuration.NearCacheConfig;
 import net.io_0.caja.configuration.RemoteCacheConfig;
 import net.io_0.caja.ehcache.EhcacheAsyncWrapper;
+import net.io_0.caja.ehcache.EhcacheSerializer;
+import net.io_0.caja.ehcache.EhcacheSnapshot;
+import net.io_0.caja.ehcache.VariableExpiryPolicy;
+import net.io_0.caja.ehcache.WeighingSizeOfEngineProvider;
 import net.io_0.caja.ehcache.EhcacheSyncWrapper;
+import net.io_0.caja.near.InvalidationBus;
+import net.io_0.caja.near.InvalidationChannel;
+import net.io_0.caja.near.Invalidations;
+import net.io_0.caja.near.NearCacheAsyncWrapper;
+import net.io_0.caja.near.NearCacheSyncWrapper;
 import net.io_0.caja.redis.JsonObjectCodec;
 import net.io_0.caja.redis.KeyOrWildcard;
 import net.io_0.caja.redis.RedisAsyncWrapper;
+import net.io_0.caja.redis.RedisLoadLock;
 import net.io_0.caja.redis.RedisSyncWrapper;
+import net.io_0.caja.redis.RemoteConnection;
+import net.io_0.caja.serialization.CompressingValueSerializer;
+import net.io_0.caja.serialization.CompressionStatistics;
+import net.io_0.caja.serialization.KryoValueSerializer;
+import net.io_0.caja.serialization.ValueSerializer;
 import net.io_0.caja.sync.Cache;
+import net.io_0.caja.sync.LoadingDecorator;
+import net.io_0.caja.statistics.CacheStatistics;
 import net.io_0.caja.sync.LoggingStatisticsDecorator;
+import net.io_0.caja.sync.StatisticsDecorator;
+import net.io_0.caja.sync.WriteBehindDecorator;
+import net.io_0.caja.sync.WriteThroughDecorator;
 import org.ehcache.config.builders.CacheManagerBuilder;
-import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.internal.statistics.DefaultStatisticsService;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.TierStatistics;
+import org.ehcache.event.EventType;
 
+import java.net.URLEncoder;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static net.io_0.caja.configuration.CacheConfig.LogLevel;
 import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
-import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
+import static org.ehcache.config.builders.CacheEventListenerConfigurationBuilder.newEventListenerConfiguration;
 
 @Slf4j
 public class CacheManager {
+  private static final ValueSerializer LOCAL_TIER_SERIALIZER = KryoValueSerializer.unregistered();
+
+  private final String id = UUID.randomUUID().toString();
   private final CacheManagerConfig config;
   private final org.ehcache.CacheManager localManager;
 
@@ -52,7 +91,7 @@ public class CacheManager {
 
   public CacheManager(CacheManagerConfig config) {
     this.config = config;
-    this.localManager = CacheManagerBuilder.newCacheManagerBuilder().build(true);
+    this.localManager = newLocalManager(null);
   }
 
   /**
@@ -99,15 +138,48 @@ public class CacheManager {
    *
    * @throws IllegalArgumentException if a cache under that name exist wit different types
    */
+  @SuppressWarnings("unchecked")
   public <K, V> Cache<K, V> getAsSync(String name, Context context, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
     CacheConfig cfg = this.config.getCacheConfigurations().getOrDefault(name, context.defaultConfig);
-    var cache = cfg instanceof LocalCacheConfig
-      ? EhcacheSyncWrapper.wrap(getLocalCache(name, keyType, valueType, (LocalCacheConfig) cfg))
-      : RedisSyncWrapper.wrap(getSyncRemoteCache(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), cfg.getTtlInSeconds());
+    if (!(cfg instanceof LocalCacheConfig)) return createSync(name, cfg, context, keyType, valueType, valueSubTypes);
+
+    // local caches hold no per caller state, so all callers share one instance
+    return (Cache<K, V>) localSyncCaches.compute(name, (ignore, bound) ->
+      nonNull(bound) && bound.isBoundTo(cfg, context, keyType, valueType)
+        ? bound
+        : new BoundCache(cfg, context.loader, context.writer, keyType, valueType, createSync(name, cfg, context, keyType, valueType, valueSubTypes))
+    ).cache;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <K, V> Cache<K, V> createSync(String name, CacheConfig cfg, Context context, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+    Cache<K, V> cache;
+    if (cfg instanceof LocalCacheConfig) {
+      cache = EhcacheSyncWrapper.wrap(getLocalCache(name, keyType, valueType, (LocalCacheConfig) cfg));
+    } else if (cfg instanceof NearCacheConfig) {
+      var localCache = getLocalCache(name, keyType, valueType, ((NearCacheConfig) cfg).getLocal());
+      cache = NearCacheSyncWrapper.wrap(
+        EhcacheSyncWrapper.wrap(localCache),
+        RedisSyncWrapper.wrap(getRemoteConnection(name, (RemoteCacheConfig) cfg), getRemoteCodec(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), (RemoteCacheConfig) cfg, getFreshness(name, cfg)),
+        getInvalidations(name, (NearCacheConfig) cfg, localCache, keyType, valueType, valueSubTypes)
+      );
+    } else {
+      cache = RedisSyncWrapper.wrap(getRemoteConnection(name, (RemoteCacheConfig) cfg), getRemoteCodec(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), (RemoteCacheConfig) cfg, getFreshness(name, cfg));
+    }
+    if (isWriteBehind(cfg)) {
+      cache = new WriteBehindDecorator<>(getWriteBehind(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), cache);
+    }
     if (!LogLevel.OFF.equals(cfg.getLogStatistics())) {
       cache = new LoggingStatisticsDecorator<>(name, cfg.getLogStatistics(), cache);
     }
-    return cache;
+    cache = new LoadingDecorator<>(
+      getLoads(name), getLoadLock(name, cfg, keyType, valueType, valueSubTypes), getCacheStatistics(name), getFreshness(name, cfg),
+      cfg.getRefreshExecutor(), (CacheLoader<K, V>) context.loader, cache
+    );
+    if (nonNull(context.writer)) {
+      cache = new WriteThroughDecorator<>((CacheWriter<K, V>) context.writer, cache);
+    }
+    return new StatisticsDecorator<>(getCacheStatistics(name), cache);
   }
 
   /**
@@ -122,22 +194,67 @@ public class CacheManager {
    *
    * @throws IllegalArgumentException if a cache under that name exist wit different types
    */
+  @SuppressWarnings("unchecked")
   public <K, V> net.io_0.caja.async.Cache<K, V> getAsAsync(String name, Context context, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
     CacheConfig cfg = this.config.getCacheConfigurations().getOrDefault(name, context.defaultConfig);
-    var cache = cfg instanceof LocalCacheConfig
-      ? EhcacheAsyncWrapper.wrap(getLocalCache(name, keyType, valueType, (LocalCacheConfig) cfg))
-      : RedisAsyncWrapper.wrap(getAsyncRemoteCache(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), cfg.getTtlInSeconds());
+    net.io_0.caja.async.Cache<K, V> cache = createAsync(name, cfg, keyType, valueType, valueSubTypes);
+    if (isWriteBehind(cfg)) {
+      cache = new net.io_0.caja.async.WriteBehindDecorator<>(getWriteBehind(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), cache);
+    }
     if (!LogLevel.OFF.equals(cfg.getLogStatistics())) {
       cache = new net.io_0.caja.async.LoggingStatisticsDecorator<>(name, cfg.getLogStatistics(), cache);
     }
+    cache = new net.io_0.caja.async.LoadingDecorator<>(
+      getLoads(name), getLoadLock(name, cfg, keyType, valueType, valueSubTypes), getCacheStatistics(name), getFreshness(name, cfg),
+      (CacheLoader<K, V>) context.loader, cache
+    );
+    if (nonNull(context.writer)) {
+      cache = new net.io_0.caja.async.WriteThroughDecorator<>((CacheWriter<K, V>) context.writer, cache);
+    }
+    return new net.io_0.caja.async.StatisticsDecorator<>(getCacheStatistics(name), cache);
+  }
+
+  private <K, V> net.io_0.caja.async.Cache<K, V> createAsync(String name, CacheConfig cfg, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+    net.io_0.caja.async.Cache<K, V> cache;
+    if (cfg instanceof LocalCacheConfig) {
+      cache = EhcacheAsyncWrapper.wrap(getLocalCache(name, keyType, valueType, (LocalCacheConfig) cfg), (LocalCacheConfig) cfg);
+    } else if (cfg instanceof NearCacheConfig) {
+      var localCache = getLocalCache(name, keyType, valueType, ((NearCacheConfig) cfg).getLocal());
+      cache = NearCacheAsyncWrapper.wrap(
+        EhcacheAsyncWrapper.wrap(localCache, ((NearCacheConfig) cfg).getLocal()),
+        RedisAsyncWrapper.wrap(getRemoteConnection(name, (RemoteCacheConfig) cfg), getRemoteCodec(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), (RemoteCacheConfig) cfg, getFreshness(name, cfg)),
+        getInvalidations(name, (NearCacheConfig) cfg, localCache, keyType, valueType, valueSubTypes)
+      );
+    } else {
+      cache = RedisAsyncWrapper.wrap(getRemoteConnection(name, (RemoteCacheConfig) cfg), getRemoteCodec(name, (RemoteCacheConfig) cfg, keyType, valueType, valueSubTypes), (RemoteCacheConfig) cfg, getFreshness(name, cfg));
+    }
     return cache;
   }
 
+  @RequiredArgsConstructor
+  private static class BoundCache {
+    private final CacheConfig config;
+    private final CacheLoader<?, ?> loader;
+    private final CacheWriter<?, ?> writer;
+    private final Class<?> keyType;
+    private final Class<?> valueType;
+    private final Cache<?, ?> cache;
+
+    private boolean isBoundTo(CacheConfig config, Context context, Class<?> keyType, Class<?> valueType) {
+      return this.config == config && this.loader == context.loader && this.writer == context.writer
+        && this.keyType.equals(keyType) && this.valueType.equals(valueType);
+    }
+  }
+
   @Builder
   public static class Context {
     @Builder.Default
     // default configuration overwrite, won't be used if specific (named) configuration exists
     private CacheConfig defaultConfig = new LocalCacheConfig();
+    // loads values for getThrough(key) and getAllThrough(keys), none if null
+    private CacheLoader<?, ?> loader;
+    // writes puts and removes through, before the cache is written, none if null
+    private CacheWriter<?, ?> writer;
 
     public static Context of() {
       return builder().build();
@@ -164,31 +281,236 @@ public class CacheManager {
     return getAsAsync(name, Context.ofDefaultConfig(defaultConfig), keyType, valueType);
   }
 
+  /**
+   * Get a snapshot of the statistics of all caches, e.g. to scrape them periodically.
+   *
+   * @return hit, miss, put, remove, load and eviction counts, latencies per operation and memory gauges by cache name
+   */
+  public Map<String, CacheStatistics.Snapshot> getStatistics() {
+    Map<String, CacheStatistics.Snapshot> snapshots = new TreeMap<>();
+    statistics.forEach((name, cacheStatistics) -> snapshots.put(name, cacheStatistics.snapshot()));
+    return snapshots;
+  }
+
+  /**
+   * Get a snapshot of the statistics of the cache with the given name.
+   *
+   * @param name the name of the cache
+   * @return hit, miss, put, remove, load and eviction counts, latencies per operation and memory gauges
+   */
+  public CacheStatistics.Snapshot getStatistics(String name) {
+    return getCacheStatistics(name).snapshot();
+  }
+
+  /**
+   * Get the heap memory taken by all local caches (and local tiers of near caches) sized in bytes, e.g. to budget
+   * heap across them.
+   *
+   * @return the sum of the heap gauges of all caches sized in bytes
+   */
+  public long getHeapInBytes() {
+    return statistics.values().stream()
+      .mapToLong(cacheStatistics -> cacheStatistics.snapshot().getHeapInBytes())
+      .filter(heapInBytes -> heapInBytes != CacheStatistics.UNKNOWN)
+      .sum();
+  }
+
+  /**
+   * Get the compression statistics of a remote or near cache with the given name.
+   *
+   * @param name the name of the cache
+   * @return sizes of the values serialized by the cache, before and after compression
+   */
+  public CompressionStatistics getCompressionStatistics(String name) {
+    return compressions.computeIfAbsent(name, ignore -> new CompressionStatistics());
+  }
+
   private <K, V> org.ehcache.Cache<K, V> getLocalCache(String name, Class<K> keyType, Class<V> valueType, LocalCacheConfig config) {
-    org.ehcache.Cache<K, V> localCache = localManager.getCache(name, keyType, valueType);
+    org.ehcache.CacheManager manager = getLocalManager(config);
+    org.ehcache.Cache<K, V> localCache = manager.getCache(name, keyType, valueType);
 
     if (isNull(localCache)) {
-      localCache = localManager.createCache(name,
-        newCacheConfigurationBuilder(keyType, valueType, heap(config.getHeap()))
-          .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(config.getTtlInSeconds())))
-          .build()
-      );
+      boolean snapshotting = nonNull(config.getSnapshotIntervalInSeconds());
+      VariableExpiryPolicy expiry = new VariableExpiryPolicy(Duration.ofSeconds(config.getTtlInSeconds()), toDuration(config.getTtiInSeconds()), snapshotting, getScheduler());
+      var builder = newCacheConfigurationBuilder(keyType, valueType, getResourcePools(config))
+        .withExpiry(expiry)
+        .withService(newEventListenerConfiguration(event -> getCacheStatistics(name).recordEviction(), EventType.EVICTED).unordered().asynchronous());
+      if (nonNull(config.getHeapInMegaBytes())) {
+        builder = builder.withService(new WeighingSizeOfEngineProvider.WeigherConfiguration(config.getWeigher()));
+      }
+      if (nonNull(config.getOffHeapInMegaBytes()) || nonNull(config.getDiskInMegaBytes())) {
+        // lower tiers store bytes, Kryo spares keys and values from implementing Serializable
+        builder = builder
+          .withKeySerializer(new EhcacheSerializer<>(LOCAL_TIER_SERIALIZER, keyType))
+          .withValueSerializer(new EhcacheSerializer<>(LOCAL_TIER_SERIALIZER, valueType));
+      }
+      localCache = manager.createCache(name, builder.build());
+      getCacheStatistics(name).gaugeMemory(() -> getOccupiedBytes(manager, name, "OnHeap"), () -> getOccupiedBytes(manager, name, "OffHeap"));
       log.debug("{}: created with {}", name, config);
+      if (snapshotting) snapshot(name, localCache, keyType, valueType, expiry, config);
     }
 
     return localCache;
   }
 
-  private <K, V> RedisCommands<KeyOrWildcard<K>, V> getSyncRemoteCache(String name, RemoteCacheConfig config, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
-    return getRemoteCacheConnection(name, config, keyType, valueType, valueSubTypes).sync();
+  /**
+   * Restores a new local cache from its snapshot and snapshots it periodically from then on, and on close. Snapshots
+   * are written on the executor of the cache, so large ones don't hold up the scheduler.
+   */
+  private <K, V> void snapshot(String name, org.ehcache.Cache<K, V> localCache, Class<K> keyType, Class<V> valueType, VariableExpiryPolicy expiry, LocalCacheConfig config) {
+    Path file = Path.of(config.getDiskDirectory(), "snapshots", URLEncoder.encode(name, UTF_8) + ".snapshot");
+    EhcacheSnapshot<K, V> snapshot = new EhcacheSnapshot<>(name, file, localCache, keyType, valueType, expiry, LOCAL_TIER_SERIALIZER);
+    snapshot.restore();
+    snapshots.put(name, snapshot);
+
+    long interval = config.getSnapshotIntervalInSeconds();
+    getScheduler().scheduleAtFixedRate(() -> config.getExecutor().execute(snapshot::write), interval, interval, TimeUnit.SECONDS);
+  }
+
+  private static Duration toDuration(Integer seconds) {
+    return isNull(seconds) ? null : Duration.ofSeconds(seconds);
+  }
+
+  private static ResourcePoolsBuilder getResourcePools(LocalCacheConfig config) {
+    ResourcePoolsBuilder pools = isNull(config.getHeapInMegaBytes())
+      ? ResourcePoolsBuilder.heap(config.getHeap())
+      : ResourcePoolsBuilder.newResourcePoolsBuilder().heap(config.getHeapInMegaBytes(), MemoryUnit.MB);
+    if (nonNull(config.getOffHeapInMegaBytes())) pools = pools.offheap(config.getOffHeapInMegaBytes(), MemoryUnit.MB);
+    if (nonNull(config.getDiskInMegaBytes())) pools = pools.disk(config.getDiskInMegaBytes(), MemoryUnit.MB, true);
+    return pools;
+  }
+
+  /**
+   * Ehcache persists to one directory per cache manager, caches with a disk tier get the manager of their directory.
+   */
+  private org.ehcache.CacheManager getLocalManager(LocalCacheConfig config) {
+    if (isNull(config.getDiskInMegaBytes())) return localManager;
+
+    return diskManagers.computeIfAbsent(config.getDiskDirectory(), this::newLocalManager);
+  }
+
+  /**
+   * @param diskDirectory directory to persist disk tiers to, {@code null} for a manager without disk tiers
+   */
+  private org.ehcache.CacheManager newLocalManager(String diskDirectory) {
+    StatisticsService statisticsService = new DefaultStatisticsService();
+    var builder = CacheManagerBuilder.newCacheManagerBuilder()
+      .using(new WeighingSizeOfEngineProvider())
+      .using(statisticsService);
+    org.ehcache.CacheManager manager = isNull(diskDirectory)
+      ? builder.build(true)
+      : builder.with(CacheManagerBuilder.persistence(diskDirectory)).build(true);
+    tierStatistics.put(manager, statisticsService);
+    return manager;
+  }
+
+  private long getOccupiedBytes(org.ehcache.CacheManager manager, String name, String tier) {
+    TierStatistics statistics = tierStatistics.get(manager).getCacheStatistics(name).getTierStatistics().get(tier);
+    return isNull(statistics) || statistics.getOccupiedByteSize() < 0 ? CacheStatistics.UNKNOWN : statistics.getOccupiedByteSize();
   }
 
-  private <K, V> RedisAsyncCommands<KeyOrWildcard<K>, V> getAsyncRemoteCache(String name, RemoteCacheConfig config, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
-    return getRemoteCacheConnection(name, config, keyType, valueType, valueSubTypes).async();
+  @SuppressWarnings("unchecked")
+  private <K, V> SingleFlight<K, V> getLoads(String name) {
+    return (SingleFlight<K, V>) loads.computeIfAbsent(name, n -> new SingleFlight<>());
+  }
+
+  /**
+   * Remote caches can lock loads across nodes, so only one node calls the value supplier of a missing key.
+   */
+  private <K, V> LoadLock<K> getLoadLock(String name, CacheConfig config, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+    if (!(config instanceof RemoteCacheConfig) || isNull(((RemoteCacheConfig) config).getLoadLockLeaseInMillis())) return LoadLock.none();
+
+    RemoteCacheConfig remoteConfig = (RemoteCacheConfig) config;
+    return new RedisLoadLock<>(
+      getRemoteConnection(name, remoteConfig).async(), getRemoteCodec(name, remoteConfig, keyType, valueType, valueSubTypes),
+      Duration.ofMillis(remoteConfig.getLoadLockLeaseInMillis()), Duration.ofMillis(remoteConfig.getLoadLockPollInMillis())
+    );
+  }
+
+  private boolean isWriteBehind(CacheConfig config) {
+    return config instanceof RemoteCacheConfig && nonNull(((RemoteCacheConfig) config).getWriteBehindDelayInMillis());
+  }
+
+  /**
+   * All caches of a name share one write-behind queue, it flushes through an async cache of the name, so near caches
+   * write their local tier and publish invalidations only once the writes reached Redis.
+   */
+  @SuppressWarnings("unchecked")
+  private <K, V> WriteBehind<K, V> getWriteBehind(String name, RemoteCacheConfig config, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+    return (WriteBehind<K, V>) writeBehinds.computeIfAbsent(name, n -> {
+      log.debug("{}: created write-behind queue with {}", name, config);
+      return new WriteBehind<>(
+        createAsync(name, config, keyType, valueType, valueSubTypes), getScheduler(), Duration.ofMillis(config.getWriteBehindDelayInMillis()),
+        config.getWriteBehindBatchSize(), config.getWriteBehindQueueSize(), getCacheStatistics(name)
+      );
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private <K> Freshness<K> getFreshness(String name, CacheConfig config) {
+    return (Freshness<K>) freshness.computeIfAbsent(name, n -> Freshness.of(config, getScheduler()));
   }
 
   @SuppressWarnings("unchecked")
-  private <K, V> StatefulRedisConnection<KeyOrWildcard<K>, V> getRemoteCacheConnection(String name, RemoteCacheConfig config, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+  private <K, V> Invalidations<K> getInvalidations(String name, NearCacheConfig config, org.ehcache.Cache<K, V> localCache, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+    if (isNull(config.getInvalidationDelayInMillis())) return Invalidations.none();
+
+    return (Invalidations<K>) invalidations.computeIfAbsent(name, n -> {
+      InvalidationBus bus = buses.computeIfAbsent(config.getHost(), host -> config.getCluster()
+        ? new InvalidationBus(id, getClusterClient(name, config))
+        : new InvalidationBus(id, getClient(name, config))
+      );
+      log.debug("{}: created invalidation channel with {}", name, config);
+      return new InvalidationChannel<>(
+        name, new JsonObjectCodec<>(name, keyType, valueType, valueSubTypes), bus, localCache,
+        config.getLocal().getExecutor(), getScheduler(), Duration.ofMillis(config.getInvalidationDelayInMillis())
+      );
+    });
+  }
+
+  private synchronized ScheduledExecutorService getScheduler() {
+    if (isNull(scheduler)) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("caja-scheduler").daemon().factory());
+    }
+    return scheduler;
+  }
+
+  private <K, V> JsonObjectCodec<K, KeyOrWildcard<K>, V> getRemoteCodec(String name, RemoteCacheConfig config, Class<K> keyType, Class<V> valueType, Class<?>... valueSubTypes) {
+    return new JsonObjectCodec<>(name, keyType, valueType, getValueSerializer(name, config), config.getHashKeys(), valueSubTypes);
+  }
+
+  /**
+   * All caches of a host (and read preference) share one multiplexed connection, so their commands are written out
+   * together instead of each cache flushing its own socket. A cluster connection keeps one connection per node.
+   */
+  private RemoteConnection getRemoteConnection(String name, RemoteCacheConfig config) {
+    return connections.computeIfAbsent(String.format("%s|%s|%s", config.getHost(), config.getReadFrom(), config.getCluster()), ignore -> {
+      log.debug("{}: created connection with {}", name, config);
+      if (config.getCluster()) {
+        StatefulRedisClusterConnection<byte[], byte[]> connection = getClusterClient(name, config).connect(ByteArrayCodec.INSTANCE);
+        connection.setReadFrom(toLettuceReadFrom(config.getReadFrom()));
+        return RemoteConnection.of(connection);
+      }
+
+      StatefulRedisMasterReplicaConnection<byte[], byte[]> connection = MasterReplica.connect(
+        getClient(name, config), ByteArrayCodec.INSTANCE, RedisURI.create(config.getHost())
+      );
+      connection.setReadFrom(toLettuceReadFrom(config.getReadFrom()));
+      return RemoteConnection.of(connection);
+    });
+  }
+
+  private CacheStatistics getCacheStatistics(String name) {
+    return statistics.computeIfAbsent(name, ignore -> new CacheStatistics());
+  }
+
+  private ValueSerializer getValueSerializer(String name, RemoteCacheConfig config) {
+    CompressionStatistics compression = getCompressionStatistics(name);
+    getCacheStatistics(name).gaugeCompression(compression::getSerializedBytes, compression::getStoredBytes);
+    return new CompressingValueSerializer(config.getValueSerializer(), config.getCompressionThresholdInBytes(), compression);
+  }
+
+  private RedisClient getClient(String name, RemoteCacheConfig config) {
     String host = config.getHost();
 
     RedisClient client = clients.get(host);
@@ -198,15 +520,14 @@ public class CacheManager {
       log.debug("{}: created client with {}", name, config);
     }
 
-    StatefulRedisMasterReplicaConnection<KeyOrWildcard<K>, V> connection = (StatefulRedisMasterReplicaConnection<KeyOrWildcard<K>, V>) connections.get(String.format("%s|%s", name, host));
-    if (isNull(connection)) {
-      connection = MasterReplica.connect(client, new JsonObjectCodec<>(name, keyType, valueType, valueSubTypes), RedisURI.create(host));
-      connection.setReadFrom(toLettuceReadFrom(config.getReadFrom()));
-      connections.put(String.format("%s|%s", name, host), connection);
-      log.debug("{}: created connection with {}", name, config);
-    }
+    return client;
+  }
 
-    return connection;
+  private RedisClusterClient getClusterClient(String name, RemoteCacheConfig config) {
+    return clusterClients.computeIfAbsent(config.getHost(), host -> {
+      log.debug("{}: created cluster client with {}", name, config);
+      return RedisClusterClient.create(host);
+    });
   }
 
   private ReadFrom toLettuceReadFrom(RemoteCacheConfig.ReadFrom readFrom) {
@@ -225,8 +546,21 @@ public class CacheManager {
     }
   }
 
+  private Map<String, org.ehcache.CacheManager> diskManagers = new ConcurrentHashMap<>();
+  private Map<org.ehcache.CacheManager, StatisticsService> tierStatistics = new ConcurrentHashMap<>();
   private Map<String, RedisClient> clients = new ConcurrentHashMap<>();
-  private Map<String, StatefulRedisConnection<?, ?>> connections = new ConcurrentHashMap<>();
+  private Map<String, RedisClusterClient> clusterClients = new ConcurrentHashMap<>();
+  private Map<String, RemoteConnection> connections = new ConcurrentHashMap<>();
+  private Map<String, SingleFlight<?, ?>> loads = new ConcurrentHashMap<>();
+  private Map<String, Freshness<?>> freshness = new ConcurrentHashMap<>();
+  private Map<String, CompressionStatistics> compressions = new ConcurrentHashMap<>();
+  private Map<String, CacheStatistics> statistics = new ConcurrentHashMap<>();
+  private Map<String, BoundCache> localSyncCaches = new ConcurrentHashMap<>();
+  private Map<String, InvalidationBus> buses = new ConcurrentHashMap<>();
+  private Map<String, InvalidationChannel<?>> invalidations = new ConcurrentHashMap<>();
+  private Map<String, WriteBehind<?, ?>> writeBehinds = new ConcurrentHashMap<>();
+  private Map<String, EhcacheSnapshot<?, ?>> snapshots = new ConcurrentHashMap<>();
+  private ScheduledExecutorService scheduler;
 
   @RequiredArgsConstructor
   static class ClientAndConnection<K, V> {
@@ -235,9 +569,23 @@ public class CacheManager {
   }
 
   public void close() {
+    AsyncUtils.await(CompletableFuture.allOf(writeBehinds.values().stream()
+      .map(WriteBehind::flush)
+      .toArray(CompletableFuture[]::new)
+    ));
+    AsyncUtils.await(CompletableFuture.allOf(invalidations.values().stream()
+      .map(InvalidationChannel::flush)
+      .toArray(CompletableFuture[]::new)
+    ));
+    buses.values().forEach(InvalidationBus::close);
+    if (nonNull(scheduler)) scheduler.shutdown();
+
+    snapshots.values().forEach(EhcacheSnapshot::close);
     localManager.close();
+    diskManagers.values().forEach(org.ehcache.CacheManager::close);
 
-    connections.values().forEach(StatefulConnection::close);
+    connections.values().forEach(RemoteConnection::close);
     clients.values().forEach(AbstractRedisClient::shutdown);
+    clusterClients.values().forEach(AbstractRedisClient::shutdown);
   }
 }
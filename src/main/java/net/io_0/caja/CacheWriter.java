@@ -0,0 +1,32 @@
+package net.io_0.caja;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the puts and removes of a cache through to their source, before the cache is updated. If writing fails,
+ * the cache keeps its mapping. Conditional writes are written through once they succeeded in the cache. Values
+ * loaded into the cache and clearing the cache aren't written. Registered with a cache via {@link CacheManager.Context}.
+ *
+ * @param <K> the key type for the cache
+ * @param <V> the value type for the cache
+ */
+public interface CacheWriter<K, V> {
+  void write(K key, V value);
+
+  void delete(K key);
+
+  /**
+   * Writes the given entries, one by one unless overridden.
+   */
+  default void writeAll(Map<K, V> entries) {
+    entries.forEach(this::write);
+  }
+
+  /**
+   * Deletes the given keys, one by one unless overridden.
+   */
+  default void deleteAll(Collection<K> keys) {
+    keys.forEach(this::delete);
+  }
+}
@@ -0,0 +1,45 @@
+package net.io_0.caja;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * A loaded value together with the time it may be cached for.
+ *
+ * @param <V> the value type
+ */
+@Getter @ToString
+@AllArgsConstructor(access = PRIVATE)
+public class Expiring<V> {
+  private static final Duration ONE_MILLI = Duration.ofMillis(1);
+
+  private final V value;
+  private final Duration ttl;
+
+  /**
+   * @throws NullPointerException if ttl is {@code null}
+   * @throws IllegalArgumentException if ttl isn't positive
+   */
+  public static <V> Expiring<V> of(V value, Duration ttl) {
+    return new Expiring<>(value, checkTtl(ttl));
+  }
+
+  /**
+   * Checks a time to live given for a single entry. Caches store times to live in millis, so positive ones below a
+   * milli are rounded up to one, rather than down to an expiry Redis rejects.
+   *
+   * @return the time to live, at least one milli
+   * @throws NullPointerException if ttl is {@code null}
+   * @throws IllegalArgumentException if ttl isn't positive
+   */
+  public static Duration checkTtl(Duration ttl) {
+    requireNonNull(ttl);
+    if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive, was " + ttl);
+    return ttl.compareTo(ONE_MILLI) < 0 ? ONE_MILLI : ttl;
+  }
+}
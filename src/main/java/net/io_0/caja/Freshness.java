@@ -0,0 +1,168 @@
+package net.io_0.caja;
+
+import net.io_0.caja.configuration.CacheConfig;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Remembers when the keys of a cache were written, to tell whether a cached value is due for a refresh or already
+ * stale before it expires. Keys written on this node are recorded as they are written, remote caches report the time
+ * to live left of the values they read, so values written by other nodes are aged from when they were written too.
+ * Values nothing is known of count as fresh. Each write of a key on this node gets the key a new version, so a
+ * background reload can tell whether the value it reloads was written meanwhile, without comparing values. After a
+ * reload of a key failed, the key isn't reloaded again for half the age values are reloaded at, so a source
+ * outage isn't hit by a reload on every read.
+ *
+ * @param <K> the key type
+ */
+public class Freshness<K> {
+  private final long refreshAfterNanos;
+  private final long staleAfterNanos;
+  private final long expireAfterNanos;
+  private final long retryAfterNanos;
+  private final Map<K, Written> writtenAt = new ConcurrentHashMap<>();
+  private final AtomicLong versions = new AtomicLong();
+
+  private Freshness(long refreshAfterNanos, long staleAfterNanos, long expireAfterNanos) {
+    this.refreshAfterNanos = refreshAfterNanos;
+    this.staleAfterNanos = staleAfterNanos;
+    this.expireAfterNanos = expireAfterNanos;
+    this.retryAfterNanos = refreshAfterNanos / 2;
+  }
+
+  /**
+   * @param scheduler sweeps the write times of expired values once per ttl
+   * @return freshness tracking as configured, {@link #none()} if the cache neither refreshes ahead nor has a soft ttl
+   */
+  public static <K> Freshness<K> of(CacheConfig config, ScheduledExecutorService scheduler) {
+    if (isNull(config.getRefreshAheadFactor()) && isNull(config.getSoftTtlInSeconds())) return none();
+
+    long expireAfterNanos = config.getTtlInSeconds() * 1_000_000_000L;
+    long staleAfterNanos = isNull(config.getSoftTtlInSeconds()) ? Long.MAX_VALUE : config.getSoftTtlInSeconds() * 1_000_000_000L;
+    long refreshAfterNanos = isNull(config.getRefreshAheadFactor()) ? Long.MAX_VALUE : (long) (expireAfterNanos * config.getRefreshAheadFactor());
+    Freshness<K> freshness = new Freshness<>(Math.min(refreshAfterNanos, staleAfterNanos), staleAfterNanos, expireAfterNanos);
+    Sweeper.sweep(freshness.writtenAt, written -> System.nanoTime() - written.at >= expireAfterNanos, Duration.ofNanos(expireAfterNanos), scheduler);
+    return freshness;
+  }
+
+  /**
+   * @return tracking that considers every value fresh and remembers nothing
+   */
+  public static <K> Freshness<K> none() {
+    return new Freshness<>(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  public boolean isTracking() {
+    return refreshAfterNanos != Long.MAX_VALUE;
+  }
+
+  /**
+   * Checks a cached value of the given key.
+   *
+   * @param key the key of a value that was found in the cache
+   * @return the state of the value
+   */
+  public State check(K key) {
+    if (!isTracking()) return State.FRESH;
+
+    long now = System.nanoTime();
+    Written written = writtenAt.get(key);
+    if (isNull(written)) return State.FRESH;
+
+    long age = now - written.at;
+    if (age >= expireAfterNanos) {
+      // the value we knew expired, what's cached now is unknown
+      writtenAt.remove(key, written);
+      return State.FRESH;
+    }
+    if (age >= staleAfterNanos) return State.STALE;
+    return age >= refreshAfterNanos ? State.DUE : State.FRESH;
+  }
+
+  /**
+   * @param key the key of a value
+   * @return the version of the value, it changes with each write or removal of the key on this node
+   */
+  public long version(K key) {
+    Written written = writtenAt.get(key);
+    return isNull(written) ? 0 : written.version;
+  }
+
+  /**
+   * @param key the key of a value due for a refresh
+   * @return whether the last reload of the key failed less than the retry interval ago, it shouldn't be reloaded yet
+   */
+  public boolean isRetryPending(K key) {
+    Written written = writtenAt.get(key);
+    return nonNull(written) && nonNull(written.reloadFailedAt) && System.nanoTime() - written.reloadFailedAt < retryAfterNanos;
+  }
+
+  public void written(K key) {
+    if (!isTracking()) return;
+
+    writtenAt.put(key, new Written(System.nanoTime(), versions.incrementAndGet(), null));
+  }
+
+  /**
+   * Records that reloading the value of the key failed, the cached value is kept. Writing the key ends the retry
+   * interval.
+   */
+  public void reloadFailed(K key) {
+    if (!isTracking()) return;
+
+    long now = System.nanoTime();
+    writtenAt.computeIfPresent(key, (k, written) -> new Written(written.at, written.version, now));
+  }
+
+  /**
+   * Records when a value read from a remote cache was written, derived from the time to live it has left.
+   *
+   * @param key the key of the value
+   * @param remainingMillis the time to live left, assuming the value was written with the ttl of the cache
+   */
+  public void observed(K key, long remainingMillis) {
+    if (!isTracking()) return;
+
+    long now = System.nanoTime();
+    long age = Math.max(0, expireAfterNanos - remainingMillis * 1_000_000L);
+    // reading a value doesn't write it, a known value keeps its version
+    writtenAt.compute(key, (k, known) -> isNull(known)
+      ? new Written(now - age, versions.incrementAndGet(), null)
+      : new Written(now - age, known.version, known.reloadFailedAt));
+  }
+
+  public void removed(K key) {
+    if (isTracking()) writtenAt.remove(key);
+  }
+
+  public void cleared() {
+    if (isTracking()) writtenAt.clear();
+  }
+
+  private record Written(long at, long version, Long reloadFailedAt) { }
+
+  public enum State {
+    /**
+     * The value can be served as is.
+     */
+    FRESH,
+    /**
+     * The value can be served, but should be reloaded in the background.
+     */
+    DUE,
+    /**
+     * The value passed its soft ttl. It is served until its ttl expires, but should be reloaded in the background.
+     */
+    STALE;
+
+    public boolean needsRefresh() {
+      return this != FRESH;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package net.io_0.caja;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Collapses loads of the same key across nodes. Where {@link SingleFlight} lets one load per node through, a load
+ * lock lets one load per cache through, the other nodes wait for its value.
+ *
+ * @param <K> the key type for the cache
+ */
+public interface LoadLock<K> {
+  /**
+   * Tries to become the one node loading the given key.
+   *
+   * @param key the key to load the value for
+   * @return a lease to load the key, {@code null} if another node holds it
+   */
+  CompletableFuture<Lease> acquire(K key);
+
+  /**
+   * Waits for the node holding the lease of a key to cache its value, at most until its lease expires.
+   *
+   * @param lookup looks the value up in the cache, completes with {@code null} if it isn't there (yet)
+   * @return the value, {@code null} if none showed up in time
+   */
+  <V> CompletableFuture<V> awaitValue(Supplier<CompletableFuture<V>> lookup);
+
+  interface Lease {
+    /**
+     * Lets the next node load the key, without waiting for the lease to expire.
+     */
+    void release();
+  }
+
+  static <K> LoadLock<K> none() {
+    Lease lease = () -> { };
+    return new LoadLock<>() {
+      @Override
+      public CompletableFuture<Lease> acquire(K key) {
+        return completedFuture(lease);
+      }
+
+      @Override
+      public <V> CompletableFuture<V> awaitValue(Supplier<CompletableFuture<V>> lookup) {
+        return lookup.get();
+      }
+    };
+  }
+}
@@ -8,6 +8,17 @@ import static net.io_0.caja.configuration.CacheConfig.LogLevel;
 
 @NoArgsConstructor(access = PRIVATE)
 public class LoggingUtils {
+  public static boolean isEnabled(Logger log, LogLevel logLevel) {
+    switch (logLevel) {
+      case TRACE: return log.isTraceEnabled();
+      case INFO: return log.isInfoEnabled();
+      case WARN: return log.isWarnEnabled();
+      case ERROR: return log.isErrorEnabled();
+      case OFF: return false;
+      default /* DEBUG */: return log.isDebugEnabled();
+    }
+  }
+
   public static void logThrough(Logger log, LogLevel logLevel, String format, Object... arguments) {
     switch (logLevel) {
       case TRACE: log.trace(format, arguments); break;
@@ -0,0 +1,48 @@
+package net.io_0.caja;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+
+/**
+ * Collapses concurrent loads of the same key into one. While a load of a key is in flight, every further
+ * load of that key joins it instead of calling its own loader.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SingleFlight<K, V> {
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Loads the value for the given key, unless a load of that key is already in flight.
+   *
+   * @param key the key to load the value for
+   * @param loader called if no load of the key is in flight
+   * @return the result of the load in flight
+   */
+  public CompletableFuture<V> load(K key, Supplier<CompletableFuture<V>> loader) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+    if (nonNull(running)) return running;
+
+    CompletableFuture<V> loading;
+    try {
+      loading = loader.get();
+    } catch (RuntimeException | Error e) {
+      loading = failedFuture(e);
+    }
+
+    loading.whenComplete((value, error) -> {
+      inFlight.remove(key, flight);
+      if (isNull(error)) flight.complete(value);
+      else flight.completeExceptionally(error);
+    });
+    return flight;
+  }
+}
@@ -0,0 +1,28 @@
+package net.io_0.caja;
+
+import lombok.NoArgsConstructor;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Predicate;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Sweeps entries past their deadline out of maps that track the keys of a cache. Sweeps run periodically on the
+ * scheduler of the cache manager, so no read or write of the cache pays for a scan of a whole map.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public class Sweeper {
+  /**
+   * @param entries the map to sweep, safe for concurrent use
+   * @param passed tells by its value whether an entry is past its deadline
+   * @param interval the time between sweeps
+   * @param scheduler runs the sweeps until it is shut down
+   */
+  public static <V> void sweep(Map<?, V> entries, Predicate<V> passed, Duration interval, ScheduledExecutorService scheduler) {
+    long intervalInMillis = Math.max(1, interval.toMillis());
+    scheduler.scheduleWithFixedDelay(() -> entries.values().removeIf(passed), intervalInMillis, intervalInMillis, MILLISECONDS);
+  }
+}
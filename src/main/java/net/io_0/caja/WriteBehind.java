@@ -0,0 +1,193 @@
+package net.io_0.caja;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.io_0.caja.async.Cache;
+import net.io_0.caja.statistics.CacheStatistics;
+import net.io_0.caja.statistics.Operation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Write-behind queue of one remote or near cache. Puts and removes are queued and coalesced per key, only the last
+ * write of a key is flushed. The queue is flushed in batches once it holds a batch of keys or the delay passed since
+ * the first queued write. Writes in flight still count towards the queue size, writers wait for the flush once it is
+ * full, so a slow Redis holds them back instead of the heap filling up.
+ *
+ * @param <K> the key type for the cache
+ * @param <V> the value type for the cache
+ */
+@Slf4j
+public class WriteBehind<K, V> {
+  private final Cache<K, V> cache;
+  private final ScheduledExecutorService scheduler;
+  private final Duration delay;
+  private final int batchSize;
+  private final int queueSize;
+  private final CacheStatistics statistics;
+  private final Map<K, Write<V>> queued = new ConcurrentHashMap<>();
+  private final Map<K, Write<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private CompletableFuture<Void> flushed = completedFuture(null);
+
+  /**
+   * @param cache the cache to flush to
+   * @param scheduler schedules delayed flushes
+   * @param delay how long writes may wait for a flush
+   * @param batchSize number of queued keys that triggers a flush, and the most keys written with one command
+   * @param queueSize number of queued and in flight keys from which on writers wait for the flush
+   * @param statistics gets the queue depth gauged and flushes timed
+   */
+  public WriteBehind(Cache<K, V> cache, ScheduledExecutorService scheduler, Duration delay, int batchSize, int queueSize, CacheStatistics statistics) {
+    this.cache = cache;
+    this.scheduler = scheduler;
+    this.delay = delay;
+    this.batchSize = batchSize;
+    this.queueSize = queueSize;
+    this.statistics = statistics;
+    statistics.gaugeWriteBehind(this::depth);
+  }
+
+  public CompletableFuture<Void> put(K key, V value) {
+    return enqueue(key, new Write<>(value, null, false));
+  }
+
+  public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+    return enqueue(key, new Write<>(value, Expiring.checkTtl(ttl), false));
+  }
+
+  public CompletableFuture<Void> remove(K key) {
+    return enqueue(key, new Write<>(null, null, true));
+  }
+
+  /**
+   * @return the last write of the given key that isn't in the cache yet, {@code null} if there is none
+   */
+  public Write<V> lookup(K key) {
+    Write<V> write = queued.get(key);
+    return nonNull(write) ? write : inFlight.get(key);
+  }
+
+  /**
+   * Lets operations that read the cache itself, like conditional writes, see the writes of the given key.
+   *
+   * @return completes once the given key has no write queued or in flight
+   */
+  public CompletableFuture<Void> settle(K key) {
+    return isNull(lookup(key)) ? completedFuture(null) : flush();
+  }
+
+  /**
+   * Drops all queued writes, e.g. because the cache is cleared.
+   *
+   * @return completes once the writes in flight are done
+   */
+  public synchronized CompletableFuture<Void> discard() {
+    queued.clear();
+    return flushed;
+  }
+
+  /**
+   * @return number of keys queued or in flight
+   */
+  public long depth() {
+    return queued.size() + inFlight.size();
+  }
+
+  /**
+   * Writes all queued writes to the cache right away. A failed flush is logged, its writes are lost.
+   *
+   * @return completes once this and all earlier flushes are done
+   */
+  public synchronized CompletableFuture<Void> flush() {
+    scheduled.set(false);
+    if (queued.isEmpty()) return flushed;
+
+    Map<K, Write<V>> batch = new HashMap<>();
+    for (Map.Entry<K, Write<V>> entry : queued.entrySet()) {
+      // in flight before dequeued, so reads of the key never miss the write
+      inFlight.put(entry.getKey(), entry.getValue());
+      queued.remove(entry.getKey(), entry.getValue());
+      batch.put(entry.getKey(), entry.getValue());
+    }
+
+    long start = System.nanoTime();
+    CompletableFuture<Void> writing;
+    try {
+      writing = write(batch);
+    } catch (RuntimeException e) {
+      writing = failedFuture(e);
+    }
+    writing = writing.handle((ignore, error) -> {
+      statistics.recordLatency(Operation.FLUSH, start);
+      // only the writes of this batch, a key written and flushed again meanwhile stays in flight with its newer write
+      batch.forEach((key, write) -> inFlight.remove(key, write));
+      if (nonNull(error)) log.warn("Flushing {} writes failed, they are lost", batch.size(), error);
+      return null;
+    });
+    flushed = allOf(flushed, writing);
+    return flushed;
+  }
+
+  /**
+   * Writes the plain puts and removes of a batch with one command per chunk of the batch size, puts with a ttl of
+   * their own one by one. All commands are sent at once.
+   */
+  private CompletableFuture<Void> write(Map<K, Write<V>> batch) {
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    Map<K, V> puts = new HashMap<>();
+    List<K> removes = new ArrayList<>();
+    batch.forEach((key, write) -> {
+      if (write.isRemove()) removes.add(key);
+      else if (nonNull(write.getTtl())) writes.add(cache.put(key, write.getValue(), write.getTtl()));
+      else puts.put(key, write.getValue());
+
+      if (puts.size() >= batchSize) {
+        writes.add(cache.putAll(Map.copyOf(puts)));
+        puts.clear();
+      }
+      if (removes.size() >= batchSize) {
+        writes.add(cache.removeAll(List.copyOf(removes)));
+        removes.clear();
+      }
+    });
+    if (!puts.isEmpty()) writes.add(cache.putAll(puts));
+    if (!removes.isEmpty()) writes.add(cache.removeAll(removes));
+    return allOf(writes.toArray(CompletableFuture[]::new));
+  }
+
+  private CompletableFuture<Void> enqueue(K key, Write<V> write) {
+    queued.put(key, write);
+    if (depth() >= queueSize) return flush();
+    if (queued.size() >= batchSize) flush();
+    else if (scheduled.compareAndSet(false, true)) scheduler.schedule(this::flush, delay.toMillis(), TimeUnit.MILLISECONDS);
+    return completedFuture(null);
+  }
+
+  /**
+   * A queued put (with the ttl it was put with, if any) or remove.
+   */
+  @AllArgsConstructor(access = PRIVATE)
+  @Getter
+  public static class Write<V> {
+    private final V value;
+    private final Duration ttl;
+    private final boolean remove;
+  }
+}
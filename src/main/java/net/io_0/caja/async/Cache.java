@@ -1,11 +1,21 @@
 package net.io_0.caja.async;
 
+import net.io_0.caja.CacheLoader;
+import net.io_0.caja.Expiring;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static java.util.Objects.nonNull;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Defines all operational methods to create, access, update and delete mappings of key to value.
@@ -46,6 +56,78 @@ public interface Cache<K, V> {
    */
   CompletableFuture<Void> put(K key, V value);
 
+  /**
+   * Associates the given value to the given key in this {@code Cache} for the given time, instead of the time to live
+   * configured for the cache.
+   *
+   * @param key the key, may not be {@code null}
+   * @param value the value, may not be {@code null}
+   * @param ttl the time to live of the mapping, with millisecond precision, positive ones below a milli are rounded up
+   *
+   * @throws NullPointerException if either key, value or ttl is {@code null}
+   * @throws IllegalArgumentException if ttl isn't positive
+   */
+  CompletableFuture<Void> put(K key, V value, Duration ttl);
+
+  /**
+   * Associates the given value to the given key in this {@code Cache}, unless a value is already mapped to the key.
+   * Checking and putting happen atomically, also for remote caches shared by several nodes.
+   *
+   * @param key the key, may not be {@code null}
+   * @param value the value, may not be {@code null}
+   * @return the value already mapped to the key, {@code null} if the given value was put
+   *
+   * @throws NullPointerException if either key or value is {@code null}
+   */
+  CompletableFuture<V> putIfAbsent(K key, V value);
+
+  /**
+   * Associates the given value to the given key in this {@code Cache} for the given time, instead of the time to live
+   * configured for the cache, unless a value is already mapped to the key. Checking and putting happen atomically,
+   * also for remote caches shared by several nodes.
+   *
+   * @param key the key, may not be {@code null}
+   * @param value the value, may not be {@code null}
+   * @param ttl the time to live of the mapping, with millisecond precision, positive ones below a milli are rounded up
+   * @return the value already mapped to the key, {@code null} if the given value was put
+   *
+   * @throws NullPointerException if either key, value or ttl is {@code null}
+   * @throws IllegalArgumentException if ttl isn't positive
+   */
+  CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl);
+
+  /**
+   * Replaces the value mapped to the given key, if it is the expected one. Checking and replacing happen atomically,
+   * remote caches compare the values in their serialized form.
+   *
+   * @param key the key, may not be {@code null}
+   * @param oldValue the value expected to be mapped to the key, may not be {@code null}
+   * @param newValue the value to map the key to, may not be {@code null}
+   * @return {@code true} if the value was replaced, {@code false} otherwise
+   *
+   * @throws NullPointerException if either key or one of the values is {@code null}
+   */
+  CompletableFuture<Boolean> replace(K key, V oldValue, V newValue);
+
+  /**
+   * Retrieves the values currently mapped to the provided keys.
+   *
+   * @param keys the keys, may not contain {@code null}
+   * @return the values mapped to the keys, keys without mapping are absent
+   *
+   * @throws NullPointerException if any of the provided keys is {@code null}
+   */
+  CompletableFuture<Map<K, V>> getAll(Collection<K> keys);
+
+  /**
+   * Associates the given values to the given keys in this {@code Cache}.
+   *
+   * @param entries the mappings, may not contain {@code null} keys or values
+   *
+   * @throws NullPointerException if any key or value is {@code null}
+   */
+  CompletableFuture<Void> putAll(Map<K, V> entries);
+
   /**
    * Checks whether a mapping for the given key is present, without retrieving the associated value.
    *
@@ -63,6 +145,14 @@ public interface Cache<K, V> {
    */
   CompletableFuture<List<K>> keys();
 
+  /**
+   * Hands all currently active keys to the given consumer, without holding all of them in memory at once.
+   *
+   * @param consumer called for each key
+   * @return completes once all keys were handed over
+   */
+  CompletableFuture<Void> streamKeys(Consumer<K> consumer);
+
   /**
    * Removes the value, if any, associated with the provided key.
    *
@@ -72,13 +162,37 @@ public interface Cache<K, V> {
    */
   CompletableFuture<Void> remove(K key);
 
+  /**
+   * Removes the value mapped to the given key, if it is the expected one. Checking and removing happen atomically,
+   * remote caches compare the values in their serialized form.
+   *
+   * @param key the key to remove the value for, may not be {@code null}
+   * @param value the value expected to be mapped to the key, may not be {@code null}
+   * @return {@code true} if the value was removed, {@code false} otherwise
+   *
+   * @throws NullPointerException if either key or value is {@code null}
+   */
+  CompletableFuture<Boolean> remove(K key, V value);
+
+  /**
+   * Removes the values, if any, associated with the provided keys.
+   *
+   * @param keys the keys to remove the values for, may not contain {@code null}
+   *
+   * @throws NullPointerException if any of the provided keys is {@code null}
+   */
+  CompletableFuture<Void> removeAll(Collection<K> keys);
+
   /**
    * Removes all mappings currently present in the Cache.
    */
   CompletableFuture<Void> clear();
 
   /**
-   * Retrieves the value currently mapped to the provided key. If no key is mapped, the cache will be populated.
+   * Retrieves the value currently mapped to the provided key. If no key is mapped, the cache will be populated,
+   * unless another caller populated it meanwhile, then that value is returned.
+   * Caches acquired from a {@code CacheManager} call the value supplier only once for concurrent misses of the
+   * same key, all callers share its value.
    *
    * @param key the key, may not be {@code null}
    * @param valueSupplier value supplier if none is associated with the provided key
@@ -91,7 +205,10 @@ public interface Cache<K, V> {
   }
 
   /**
-   * Retrieves the value currently mapped to the provided key. If no key is mapped, the cache will be populated.
+   * Retrieves the value currently mapped to the provided key. If no key is mapped, the cache will be populated,
+   * unless another caller populated it meanwhile, then that value is returned.
+   * Caches acquired from a {@code CacheManager} call the value supplier only once for concurrent misses of the
+   * same key, all callers share its value.
    *
    * @param key the key, may not be {@code null}
    * @param valueSupplier value supplier if none is associated with the provided key
@@ -102,7 +219,78 @@ public interface Cache<K, V> {
   default CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
     return get(key).thenCompose(value ->
       nonNull(value) ? completedFuture(value) : valueSupplier.get()
-        .thenCompose(newValue -> put(key, newValue).thenApply(nothing -> newValue))
+        .thenCompose(newValue -> putIfAbsent(key, newValue).thenApply(present -> nonNull(present) ? present : newValue))
+    );
+  }
+
+  /**
+   * Retrieves the value currently mapped to the provided key. If no key is mapped, the cache will be populated with
+   * the value supplied for the time to live supplied with it, unless another node populated it meanwhile, then that
+   * value is returned.
+   * Caches acquired from a {@code CacheManager} call the value supplier only once for concurrent misses of the
+   * same key, all callers share its value.
+   *
+   * @param key the key, may not be {@code null}
+   * @param valueSupplier value and time to live supplier if none is associated with the provided key
+   * @return the value mapped to the key, {@code null} if none
+   *
+   * @throws NullPointerException if the provided key is {@code null}
+   */
+  default CompletableFuture<V> getThroughExpiringFuture(K key, Supplier<CompletableFuture<Expiring<V>>> valueSupplier) {
+    return get(key).thenCompose(value ->
+      nonNull(value) ? completedFuture(value) : valueSupplier.get()
+        .thenCompose(loaded -> putIfAbsent(key, loaded.getValue(), loaded.getTtl()).thenApply(present -> nonNull(present) ? present : loaded.getValue()))
     );
   }
+
+  /**
+   * Retrieves the value currently mapped to the provided key. If no key is mapped, the cache will be populated by
+   * the {@link CacheLoader} registered for the cache, as {@link #getThrough(Object, Supplier)} does.
+   *
+   * @param key the key, may not be {@code null}
+   * @return the value mapped to the key, {@code null} if none, failed with an {@link IllegalStateException} if no
+   * {@link CacheLoader} is registered for the cache
+   *
+   * @throws NullPointerException if the provided key is {@code null}
+   */
+  default CompletableFuture<V> getThrough(K key) {
+    return failedFuture(new IllegalStateException("No CacheLoader registered for the cache"));
+  }
+
+  /**
+   * Retrieves the values currently mapped to the provided keys. The keys without mapping are loaded at once by the
+   * {@link CacheLoader} registered for the cache, the cache is populated with the loaded values.
+   *
+   * @param keys the keys, may not contain {@code null}
+   * @return the values mapped to the keys, keys without mapping are absent, failed with an
+   * {@link IllegalStateException} if no {@link CacheLoader} is registered for the cache
+   *
+   * @throws NullPointerException if any of the provided keys is {@code null}
+   */
+  default CompletableFuture<Map<K, V>> getAllThrough(Collection<K> keys) {
+    return failedFuture(new IllegalStateException("No CacheLoader registered for the cache"));
+  }
+
+  /**
+   * Retrieves the values currently mapped to the provided keys. The keys without mapping are loaded at once by the
+   * values loader, the cache is populated with the loaded values.
+   *
+   * @param keys the keys, may not contain {@code null}
+   * @param valuesLoader loads the values of the keys without mapping, keys without value are absent
+   * @return the values mapped to the keys, keys without mapping are absent
+   *
+   * @throws NullPointerException if any of the provided keys is {@code null}
+   */
+  default CompletableFuture<Map<K, V>> getAllThroughFuture(Collection<K> keys, Function<Collection<K>, CompletableFuture<Map<K, V>>> valuesLoader) {
+    return getAll(keys).thenCompose(cached -> {
+      Map<K, V> values = new HashMap<>(cached);
+      List<K> missing = keys.stream().filter(key -> !values.containsKey(key)).collect(toList());
+      if (missing.isEmpty()) return completedFuture(values);
+
+      return valuesLoader.apply(missing).thenCompose(loaded -> putAll(loaded).thenApply(ignore -> {
+        values.putAll(loaded);
+        return values;
+      }));
+    });
+  }
 }
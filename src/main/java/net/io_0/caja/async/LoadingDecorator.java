@@ -0,0 +1,269 @@
+package net.io_0.caja.async;
+
+import lombok.extern.slf4j.Slf4j;
+import net.io_0.caja.CacheLoader;
+import net.io_0.caja.Expiring;
+import net.io_0.caja.Freshness;
+import net.io_0.caja.LoadLock;
+import net.io_0.caja.SingleFlight;
+import net.io_0.caja.statistics.CacheStatistics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static java.util.stream.Collectors.toList;
+
+@Slf4j
+public class LoadingDecorator<K, V> extends CacheDecorator<K, V> {
+  private final SingleFlight<K, V> loads;
+  private final LoadLock<K> loadLock;
+  private final CacheStatistics statistics;
+  private final Freshness<K> freshness;
+  private final CacheLoader<K, V> loader;
+
+  public LoadingDecorator(SingleFlight<K, V> loads, LoadLock<K> loadLock, CacheStatistics statistics, Freshness<K> freshness, CacheLoader<K, V> loader, Cache<K, V> cache) {
+    super(cache);
+    this.loads = loads;
+    this.loadLock = loadLock;
+    this.statistics = statistics;
+    this.freshness = freshness;
+    this.loader = loader;
+  }
+
+  @Override
+  public CompletableFuture<V> get(K key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+    return cache.getAll(keys);
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value) {
+    return cache.put(key, value).thenRun(() -> freshness.written(key));
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+    // refreshing ahead and soft ttls relate to the ttl of the cache
+    return cache.put(key, value, ttl).thenRun(() -> freshness.removed(key));
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value) {
+    return cache.putIfAbsent(key, value).thenApply(present -> {
+      if (isNull(present)) freshness.written(key);
+      return present;
+    });
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+    // refreshing ahead and soft ttls relate to the ttl of the cache
+    return cache.putIfAbsent(key, value, ttl).thenApply(present -> {
+      if (isNull(present)) freshness.removed(key);
+      return present;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+    return cache.replace(key, oldValue, newValue).thenApply(replaced -> {
+      if (replaced) freshness.written(key);
+      return replaced;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> putAll(Map<K, V> entries) {
+    return cache.putAll(entries).thenRun(() -> entries.keySet().forEach(freshness::written));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> containsKey(K key) {
+    return cache.containsKey(key);
+  }
+
+  @Override
+  public CompletableFuture<List<K>> keys() {
+    return cache.keys();
+  }
+
+  @Override
+  public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+    return cache.streamKeys(consumer);
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(K key) {
+    return cache.remove(key).thenRun(() -> freshness.removed(key));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> remove(K key, V value) {
+    return cache.remove(key, value).thenApply(removed -> {
+      if (removed) freshness.removed(key);
+      return removed;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<K> keys) {
+    return cache.removeAll(keys).thenRun(() -> keys.forEach(freshness::removed));
+  }
+
+  @Override
+  public CompletableFuture<Void> clear() {
+    return cache.clear().thenRun(freshness::cleared);
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    return cache.get(key).thenCompose(value -> {
+      if (nonNull(value)) {
+        Freshness.State state = freshness.check(key);
+        if (Freshness.State.STALE.equals(state)) statistics.recordStales(1);
+        else statistics.recordHits(1);
+        if (state.needsRefresh()) refresh(key, valueSupplier);
+        return completedFuture(value);
+      }
+      statistics.recordMisses(1);
+      return loads.load(key, () -> loadLocked(key, () -> statistics.recordLoadFuture(valueSupplier).thenCompose(loaded -> populate(key, loaded))));
+    });
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughExpiringFuture(K key, Supplier<CompletableFuture<Expiring<V>>> valueSupplier) {
+    return cache.get(key).thenCompose(value -> {
+      if (nonNull(value)) {
+        statistics.recordHits(1);
+        return completedFuture(value);
+      }
+      statistics.recordMisses(1);
+      return loads.load(key, () -> statistics.recordLoadFuture(valueSupplier).thenCompose(loaded -> populate(key, loaded)));
+    });
+  }
+
+  @Override
+  public CompletableFuture<V> getThrough(K key) {
+    if (isNull(loader)) return noLoader();
+    return getThrough(key, () -> loader.load(key));
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAllThrough(Collection<K> keys) {
+    if (isNull(loader)) return noLoader();
+    return getAllThroughFuture(keys, missing -> completedFuture(loader.loadAll(missing)));
+  }
+
+  /**
+   * Loads all missing keys with one call of the values loader. Unlike reads through single keys, concurrent loads of
+   * the same keys aren't collapsed.
+   */
+  @Override
+  public CompletableFuture<Map<K, V>> getAllThroughFuture(Collection<K> keys, Function<Collection<K>, CompletableFuture<Map<K, V>>> valuesLoader) {
+    return cache.getAll(keys).thenCompose(cached -> {
+      Map<K, V> values = new HashMap<>(cached);
+      statistics.recordHits(values.size());
+      List<K> missing = keys.stream().filter(key -> !values.containsKey(key)).distinct().collect(toList());
+      if (missing.isEmpty()) return completedFuture(values);
+
+      statistics.recordMisses(missing.size());
+      return statistics.recordLoadFuture(() -> valuesLoader.apply(missing)).thenCompose(loaded ->
+        (loaded.isEmpty() ? completedFuture(null) : putAll(loaded)).thenApply(ignore -> {
+          statistics.recordPuts(loaded.size());
+          values.putAll(loaded);
+          return values;
+        })
+      );
+    });
+  }
+
+  private static <T> CompletableFuture<T> noLoader() {
+    return failedFuture(new IllegalStateException("No CacheLoader registered for the cache"));
+  }
+
+  /**
+   * Populates the cache with a loaded value, unless another node populated it meanwhile, then that value wins.
+   * Checking and putting take one round trip. Loaded values are written below the statistics decorator, so their puts
+   * are recorded here, as are those of reloads and loads of all keys.
+   */
+  private CompletableFuture<V> populate(K key, V loaded) {
+    return putIfAbsent(key, loaded).thenApply(present -> {
+      if (isNull(present)) statistics.recordPuts(1);
+      return nonNull(present) ? present : loaded;
+    });
+  }
+
+  /**
+   * Populates the cache with a loaded value for the time to live it was loaded with, see {@link #populate(Object, Object)}.
+   */
+  private CompletableFuture<V> populate(K key, Expiring<V> loaded) {
+    return putIfAbsent(key, loaded.getValue(), loaded.getTtl()).thenApply(present -> {
+      if (isNull(present)) statistics.recordPuts(1);
+      return nonNull(present) ? present : loaded.getValue();
+    });
+  }
+
+  /**
+   * Runs the given load if this node wins the load lock of the key. Otherwise waits for the value of the winner,
+   * loading itself only if none shows up before the lease of the winner expires.
+   */
+  private CompletableFuture<V> loadLocked(K key, Supplier<CompletableFuture<V>> load) {
+    return loadLock.acquire(key).thenCompose(lease -> isNull(lease)
+      ? loadLock.awaitValue(() -> cache.get(key)).thenCompose(loaded -> nonNull(loaded) ? completedFuture(loaded) : load.get())
+      : leased(lease, load)
+    );
+  }
+
+  /**
+   * Runs the given load, releasing the lease once it is done, also if the load throws instead of failing its future.
+   */
+  private static <T> CompletableFuture<T> leased(LoadLock.Lease lease, Supplier<CompletableFuture<T>> load) {
+    CompletableFuture<T> loading;
+    try {
+      loading = load.get();
+    } catch (RuntimeException | Error e) {
+      lease.release();
+      throw e;
+    }
+    return loading.whenComplete((value, error) -> lease.release());
+  }
+
+  /**
+   * Reloads the value of the given key in the background, callers keep getting the cached value meanwhile.
+   * A failed reload keeps the cached value, reads of the key try again once the retry interval of the freshness passed.
+   * If another node holds the load lock of the key, it is reloading the value already. The reloaded value is written
+   * only if the key wasn't written or removed on this node meanwhile, telling by the version of the key rather than by
+   * comparing values, which may lack equals.
+   */
+  private void refresh(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    if (freshness.isRetryPending(key)) return;
+    long version = freshness.version(key);
+    loads.load(key, () -> loadLock.acquire(key).thenCompose(lease -> isNull(lease)
+      ? cache.get(key)
+      : leased(lease, () -> statistics.recordLoadFuture(valueSupplier).thenCompose(value ->
+        nonNull(value) && freshness.version(key) == version ? put(key, value).thenApply(ignore -> {
+          statistics.recordPuts(1);
+          return value;
+        }) : completedFuture(value)
+      ))
+    )).whenComplete((value, error) -> {
+      if (isNull(error)) return;
+      freshness.reloadFailed(key);
+      log.warn("Refreshing {} failed, keeping the cached value", key, error);
+    });
+  }
+}
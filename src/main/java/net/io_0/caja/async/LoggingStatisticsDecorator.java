@@ -1,11 +1,16 @@
 package net.io_0.caja.async;
 
 import lombok.extern.slf4j.Slf4j;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static net.io_0.caja.LoggingUtils.isEnabled;
 import static net.io_0.caja.LoggingUtils.logThrough;
 import static net.io_0.caja.configuration.CacheConfig.*;
 
@@ -28,6 +33,14 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
       });
   }
 
+  @Override
+  public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+    return cache.getAll(keys)
+      .whenComplete((values, error) -> {
+        if (isNull(error)) keys.forEach(key -> log("{}: {} value for '{}'", name, values.containsKey(key) ? "got" : "missed", key));
+      });
+  }
+
   @Override
   public CompletableFuture<Void> put(K key, V value) {
     return cache.put(key, value)
@@ -36,6 +49,46 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
       });
   }
 
+  @Override
+  public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+    return cache.put(key, value, ttl)
+      .whenComplete((ignored, error) -> {
+        if (isNull(error)) log("{}: put value for '{}' with ttl {}", name, key, ttl);
+      });
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value) {
+    return cache.putIfAbsent(key, value)
+      .whenComplete((present, error) -> {
+        if (isNull(error)) log("{}: {} value for '{}'", name, isNull(present) ? "put absent" : "kept present", key);
+      });
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+    return cache.putIfAbsent(key, value, ttl)
+      .whenComplete((present, error) -> {
+        if (isNull(error)) log("{}: {} value for '{}' with ttl {}", name, isNull(present) ? "put absent" : "kept present", key, ttl);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+    return cache.replace(key, oldValue, newValue)
+      .whenComplete((replaced, error) -> {
+        if (isNull(error)) log("{}: {} value for '{}'", name, replaced ? "replaced" : "kept unexpected", key);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> putAll(Map<K, V> entries) {
+    return cache.putAll(entries)
+      .whenComplete((ignored, error) -> {
+        if (isNull(error)) entries.keySet().forEach(key -> log("{}: put value for '{}'", name, key));
+      });
+  }
+
   @Override
   public CompletableFuture<Boolean> containsKey(K key) {
     return cache.containsKey(key)
@@ -52,6 +105,14 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
       });
   }
 
+  @Override
+  public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+    return cache.streamKeys(consumer)
+      .whenComplete((ignore, error) -> {
+        if (isNull(error)) log("{}: streamed active keys", name);
+      });
+  }
+
   @Override
   public CompletableFuture<Void> remove(K key) {
     return cache.remove(key)
@@ -60,6 +121,22 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
       });
   }
 
+  @Override
+  public CompletableFuture<Boolean> remove(K key, V value) {
+    return cache.remove(key, value)
+      .whenComplete((removed, error) -> {
+        if (isNull(error)) log("{}: {} value for '{}'", name, removed ? "removed" : "kept unexpected", key);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<K> keys) {
+    return cache.removeAll(keys)
+      .whenComplete((ignored, error) -> {
+        if (isNull(error)) keys.forEach(key -> log("{}: removed value for '{}'", name, key));
+      });
+  }
+
   @Override
   public CompletableFuture<Void> clear() {
     return cache.clear()
@@ -68,7 +145,20 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
       });
   }
 
-  private void log(String format, Object... arguments) {
-    logThrough(log, this.logLevel, format, arguments);
+  // fixed arities, so disabled levels cost neither an argument array nor a call through
+  private void log(String format, Object argument) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument);
+  }
+
+  private void log(String format, Object argument1, Object argument2) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument1, argument2);
+  }
+
+  private void log(String format, Object argument1, Object argument2, Object argument3) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument1, argument2, argument3);
+  }
+
+  private void log(String format, Object argument1, Object argument2, Object argument3, Object argument4) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument1, argument2, argument3, argument4);
   }
 }
@@ -0,0 +1,217 @@
+package net.io_0.caja.async;
+
+import net.io_0.caja.Expiring;
+import net.io_0.caja.statistics.CacheStatistics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static net.io_0.caja.statistics.Operation.*;
+
+public class StatisticsDecorator<K, V> extends CacheDecorator<K, V> {
+  private final CacheStatistics statistics;
+
+  public StatisticsDecorator(CacheStatistics statistics, Cache<K, V> cache) {
+    super(cache);
+    this.statistics = statistics;
+  }
+
+  @Override
+  public CompletableFuture<V> get(K key) {
+    long start = nanoTime();
+    return cache.get(key)
+      .whenComplete((value, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(GET, start);
+        if (nonNull(value)) statistics.recordHits(1);
+        else statistics.recordMisses(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+    long start = nanoTime();
+    return cache.getAll(keys)
+      .whenComplete((values, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(GET_ALL, start);
+        statistics.recordHits(values.size());
+        statistics.recordMisses((int) keys.stream().filter(key -> !values.containsKey(key)).distinct().count());
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value) {
+    long start = nanoTime();
+    return cache.put(key, value)
+      .whenComplete((ignored, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(PUT, start);
+        statistics.recordPuts(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+    long start = nanoTime();
+    return cache.put(key, value, ttl)
+      .whenComplete((ignored, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(PUT, start);
+        statistics.recordPuts(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value) {
+    long start = nanoTime();
+    return cache.putIfAbsent(key, value)
+      .whenComplete((present, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(PUT, start);
+        if (isNull(present)) statistics.recordPuts(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+    long start = nanoTime();
+    return cache.putIfAbsent(key, value, ttl)
+      .whenComplete((present, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(PUT, start);
+        if (isNull(present)) statistics.recordPuts(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+    long start = nanoTime();
+    return cache.replace(key, oldValue, newValue)
+      .whenComplete((replaced, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(PUT, start);
+        if (replaced) statistics.recordPuts(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> putAll(Map<K, V> entries) {
+    long start = nanoTime();
+    return cache.putAll(entries)
+      .whenComplete((ignored, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(PUT_ALL, start);
+        statistics.recordPuts(entries.size());
+      });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> containsKey(K key) {
+    long start = nanoTime();
+    return cache.containsKey(key)
+      .whenComplete((contained, error) -> {
+        if (isNull(error)) statistics.recordLatency(CONTAINS_KEY, start);
+      });
+  }
+
+  @Override
+  public CompletableFuture<List<K>> keys() {
+    long start = nanoTime();
+    return cache.keys()
+      .whenComplete((keys, error) -> {
+        if (isNull(error)) statistics.recordLatency(KEYS, start);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+    return cache.streamKeys(consumer);
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(K key) {
+    long start = nanoTime();
+    return cache.remove(key)
+      .whenComplete((ignored, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(REMOVE, start);
+        statistics.recordRemoves(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> remove(K key, V value) {
+    long start = nanoTime();
+    return cache.remove(key, value)
+      .whenComplete((removed, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(REMOVE, start);
+        if (removed) statistics.recordRemoves(1);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<K> keys) {
+    long start = nanoTime();
+    return cache.removeAll(keys)
+      .whenComplete((ignored, error) -> {
+        if (nonNull(error)) return;
+        statistics.recordLatency(REMOVE_ALL, start);
+        statistics.recordRemoves(keys.size());
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> clear() {
+    long start = nanoTime();
+    return cache.clear()
+      .whenComplete((ignored, error) -> {
+        if (isNull(error)) statistics.recordLatency(CLEAR, start);
+      });
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    long start = nanoTime();
+    return cache.getThroughFuture(key, valueSupplier)
+      // failed loads take their time too
+      .whenComplete((value, error) -> statistics.recordLatency(GET_THROUGH, start));
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughExpiringFuture(K key, Supplier<CompletableFuture<Expiring<V>>> valueSupplier) {
+    long start = nanoTime();
+    return cache.getThroughExpiringFuture(key, valueSupplier)
+      .whenComplete((value, error) -> statistics.recordLatency(GET_THROUGH, start));
+  }
+
+  @Override
+  public CompletableFuture<V> getThrough(K key) {
+    long start = nanoTime();
+    return cache.getThrough(key)
+      .whenComplete((value, error) -> statistics.recordLatency(GET_THROUGH, start));
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAllThrough(Collection<K> keys) {
+    long start = nanoTime();
+    return cache.getAllThrough(keys)
+      .whenComplete((values, error) -> statistics.recordLatency(GET_ALL_THROUGH, start));
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAllThroughFuture(Collection<K> keys, Function<Collection<K>, CompletableFuture<Map<K, V>>> valuesLoader) {
+    long start = nanoTime();
+    return cache.getAllThroughFuture(keys, valuesLoader)
+      .whenComplete((values, error) -> statistics.recordLatency(GET_ALL_THROUGH, start));
+  }
+}
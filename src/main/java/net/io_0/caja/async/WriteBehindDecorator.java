@@ -0,0 +1,127 @@
+package net.io_0.caja.async;
+
+import net.io_0.caja.WriteBehind;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Queues puts and removes in the write-behind queue of the cache, reads see queued writes before they reach the cache.
+ */
+public class WriteBehindDecorator<K, V> extends CacheDecorator<K, V> {
+  private final WriteBehind<K, V> writeBehind;
+
+  public WriteBehindDecorator(WriteBehind<K, V> writeBehind, Cache<K, V> cache) {
+    super(cache);
+    this.writeBehind = writeBehind;
+  }
+
+  @Override
+  public CompletableFuture<V> get(K key) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    return isNull(write) ? cache.get(key) : completedFuture(write.getValue());
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+    Map<K, V> values = new HashMap<>();
+    List<K> unqueued = new ArrayList<>();
+    for (K key : keys) {
+      WriteBehind.Write<V> write = writeBehind.lookup(key);
+      if (isNull(write)) unqueued.add(key);
+      else if (!write.isRemove()) values.put(key, write.getValue());
+    }
+    if (unqueued.isEmpty()) return completedFuture(values);
+
+    return cache.getAll(unqueued).thenApply(cached -> {
+      values.putAll(cached);
+      return values;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value) {
+    return writeBehind.put(key, value);
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+    return writeBehind.put(key, value, ttl);
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    if (nonNull(write) && !write.isRemove()) return completedFuture(write.getValue());
+    return writeBehind.settle(key).thenCompose(ignore -> cache.putIfAbsent(key, value));
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    if (nonNull(write) && !write.isRemove()) return completedFuture(write.getValue());
+    return writeBehind.settle(key).thenCompose(ignore -> cache.putIfAbsent(key, value, ttl));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+    return writeBehind.settle(key).thenCompose(ignore -> cache.replace(key, oldValue, newValue));
+  }
+
+  @Override
+  public CompletableFuture<Void> putAll(Map<K, V> entries) {
+    return allOf(entries.entrySet().stream()
+      .map(entry -> writeBehind.put(entry.getKey(), entry.getValue()))
+      .toArray(CompletableFuture[]::new)
+    );
+  }
+
+  @Override
+  public CompletableFuture<Boolean> containsKey(K key) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    return isNull(write) ? cache.containsKey(key) : completedFuture(!write.isRemove());
+  }
+
+  @Override
+  public CompletableFuture<List<K>> keys() {
+    return writeBehind.flush().thenCompose(ignore -> cache.keys());
+  }
+
+  @Override
+  public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+    return writeBehind.flush().thenCompose(ignore -> cache.streamKeys(consumer));
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(K key) {
+    return writeBehind.remove(key);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> remove(K key, V value) {
+    return writeBehind.settle(key).thenCompose(ignore -> cache.remove(key, value));
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<K> keys) {
+    return allOf(keys.stream()
+      .map(writeBehind::remove)
+      .toArray(CompletableFuture[]::new)
+    );
+  }
+
+  @Override
+  public CompletableFuture<Void> clear() {
+    return writeBehind.discard().thenCompose(ignore -> cache.clear());
+  }
+}
@@ -0,0 +1,146 @@
+package net.io_0.caja.async;
+
+import net.io_0.caja.CacheWriter;
+import net.io_0.caja.Expiring;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Writes puts and removes through the {@link CacheWriter} registered for the cache, on the calling thread before
+ * the cache is written. Reads through are passed on as they are, so loaded values aren't written back.
+ */
+public class WriteThroughDecorator<K, V> extends CacheDecorator<K, V> {
+  private final CacheWriter<K, V> writer;
+
+  public WriteThroughDecorator(CacheWriter<K, V> writer, Cache<K, V> cache) {
+    super(cache);
+    this.writer = writer;
+  }
+
+  @Override
+  public CompletableFuture<V> get(K key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+    return cache.getAll(keys);
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value) {
+    writer.write(key, value);
+    return cache.put(key, value);
+  }
+
+  @Override
+  public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+    // a put the cache rejects isn't written through either
+    Duration checked = Expiring.checkTtl(ttl);
+    writer.write(key, value);
+    return cache.put(key, value, checked);
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value) {
+    return cache.putIfAbsent(key, value).thenApply(present -> {
+      if (isNull(present)) writer.write(key, value);
+      return present;
+    });
+  }
+
+  @Override
+  public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+    return cache.putIfAbsent(key, value, ttl).thenApply(present -> {
+      if (isNull(present)) writer.write(key, value);
+      return present;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+    return cache.replace(key, oldValue, newValue).thenApply(replaced -> {
+      if (replaced) writer.write(key, newValue);
+      return replaced;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> putAll(Map<K, V> entries) {
+    writer.writeAll(entries);
+    return cache.putAll(entries);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> containsKey(K key) {
+    return cache.containsKey(key);
+  }
+
+  @Override
+  public CompletableFuture<List<K>> keys() {
+    return cache.keys();
+  }
+
+  @Override
+  public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+    return cache.streamKeys(consumer);
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(K key) {
+    writer.delete(key);
+    return cache.remove(key);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> remove(K key, V value) {
+    return cache.remove(key, value).thenApply(removed -> {
+      if (removed) writer.delete(key);
+      return removed;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<K> keys) {
+    writer.deleteAll(keys);
+    return cache.removeAll(keys);
+  }
+
+  @Override
+  public CompletableFuture<Void> clear() {
+    return cache.clear();
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    return cache.getThroughFuture(key, valueSupplier);
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughExpiringFuture(K key, Supplier<CompletableFuture<Expiring<V>>> valueSupplier) {
+    return cache.getThroughExpiringFuture(key, valueSupplier);
+  }
+
+  @Override
+  public CompletableFuture<V> getThrough(K key) {
+    return cache.getThrough(key);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAllThrough(Collection<K> keys) {
+    return cache.getAllThrough(keys);
+  }
+
+  @Override
+  public CompletableFuture<Map<K, V>> getAllThroughFuture(Collection<K> keys, Function<Collection<K>, CompletableFuture<Map<K, V>>> valuesLoader) {
+    return cache.getAllThroughFuture(keys, valuesLoader);
+  }
+}
@@ -2,15 +2,21 @@ package net.io_0.caja.configuration;
 
 import lombok.Getter;
 import lombok.ToString;
+import java.util.concurrent.Executor;
 
 @Getter @ToString
 public abstract class CacheConfig {
   private Integer ttlInSeconds;
+  private Integer ttiInSeconds;
   private LogLevel logStatistics;
+  private Double refreshAheadFactor;
+  private Integer softTtlInSeconds;
+  private Executor refreshExecutor;
 
   public CacheConfig() {
     this.ttlInSeconds = 1;
     this.logStatistics = LogLevel.DEBUG;
+    this.refreshExecutor = task -> Thread.ofVirtual().name("caja-refresh").start(task);
   }
 
   public CacheConfig setTtlInSeconds(Integer ttlInSeconds) {
@@ -18,11 +24,31 @@ public abstract class CacheConfig {
     return this;
   }
 
+  public CacheConfig setTtiInSeconds(Integer ttiInSeconds) {
+    this.ttiInSeconds = ttiInSeconds;
+    return this;
+  }
+
   public CacheConfig setLogStatistics(LogLevel logStatistics) {
     this.logStatistics = logStatistics;
     return this;
   }
 
+  public CacheConfig setRefreshAheadFactor(Double refreshAheadFactor) {
+    this.refreshAheadFactor = refreshAheadFactor;
+    return this;
+  }
+
+  public CacheConfig setSoftTtlInSeconds(Integer softTtlInSeconds) {
+    this.softTtlInSeconds = softTtlInSeconds;
+    return this;
+  }
+
+  public CacheConfig setRefreshExecutor(Executor refreshExecutor) {
+    this.refreshExecutor = refreshExecutor;
+    return this;
+  }
+
   public enum LogLevel {
     TRACE, DEBUG, INFO, WARN, ERROR, OFF
   }
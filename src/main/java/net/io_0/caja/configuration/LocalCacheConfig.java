@@ -2,13 +2,30 @@ package net.io_0.caja.configuration;
 
 import lombok.Getter;
 import lombok.ToString;
+import net.io_0.caja.sizing.SerializedSizeWeigher;
+import net.io_0.caja.sizing.Weigher;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 @Getter @ToString
 public class LocalCacheConfig extends CacheConfig {
   private Integer heap;
+  private Integer heapInMegaBytes;
+  private Weigher weigher;
+  private Integer offHeapInMegaBytes;
+  private Integer diskInMegaBytes;
+  private String diskDirectory;
+  private Integer snapshotIntervalInSeconds;
+  private Boolean inlineCompletion;
+  private Executor executor;
 
   public LocalCacheConfig() {
     this.heap = 100;
+    this.weigher = new SerializedSizeWeigher();
+    this.diskDirectory = Path.of(System.getProperty("java.io.tmpdir"), "caja").toString();
+    this.inlineCompletion = true;
+    this.executor = ForkJoinPool.commonPool();
   }
 
   public LocalCacheConfig setHeap(Integer heap) {
@@ -16,8 +33,68 @@ public class LocalCacheConfig extends CacheConfig {
     return this;
   }
 
+  public LocalCacheConfig setHeapInMegaBytes(Integer heapInMegaBytes) {
+    this.heapInMegaBytes = heapInMegaBytes;
+    return this;
+  }
+
+  public LocalCacheConfig setWeigher(Weigher weigher) {
+    this.weigher = weigher;
+    return this;
+  }
+
+  public LocalCacheConfig setOffHeapInMegaBytes(Integer offHeapInMegaBytes) {
+    this.offHeapInMegaBytes = offHeapInMegaBytes;
+    return this;
+  }
+
+  public LocalCacheConfig setDiskInMegaBytes(Integer diskInMegaBytes) {
+    this.diskInMegaBytes = diskInMegaBytes;
+    return this;
+  }
+
+  public LocalCacheConfig setDiskDirectory(String diskDirectory) {
+    this.diskDirectory = diskDirectory;
+    return this;
+  }
+
+  public LocalCacheConfig setSnapshotIntervalInSeconds(Integer snapshotIntervalInSeconds) {
+    this.snapshotIntervalInSeconds = snapshotIntervalInSeconds;
+    return this;
+  }
+
+  public LocalCacheConfig setInlineCompletion(Boolean inlineCompletion) {
+    this.inlineCompletion = inlineCompletion;
+    return this;
+  }
+
+  public LocalCacheConfig setExecutor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
   @Override
   public LocalCacheConfig setTtlInSeconds(Integer ttlInSeconds) {
     return (LocalCacheConfig) super.setTtlInSeconds(ttlInSeconds);
   }
+
+  @Override
+  public LocalCacheConfig setTtiInSeconds(Integer ttiInSeconds) {
+    return (LocalCacheConfig) super.setTtiInSeconds(ttiInSeconds);
+  }
+
+  @Override
+  public LocalCacheConfig setRefreshAheadFactor(Double refreshAheadFactor) {
+    return (LocalCacheConfig) super.setRefreshAheadFactor(refreshAheadFactor);
+  }
+
+  @Override
+  public LocalCacheConfig setSoftTtlInSeconds(Integer softTtlInSeconds) {
+    return (LocalCacheConfig) super.setSoftTtlInSeconds(softTtlInSeconds);
+  }
+
+  @Override
+  public LocalCacheConfig setRefreshExecutor(Executor refreshExecutor) {
+    return (LocalCacheConfig) super.setRefreshExecutor(refreshExecutor);
+  }
 }
@@ -0,0 +1,112 @@
+package net.io_0.caja.configuration;
+
+import lombok.Getter;
+import lombok.ToString;
+import net.io_0.caja.serialization.ValueSerializer;
+import java.util.concurrent.Executor;
+
+@Getter @ToString
+public class NearCacheConfig extends RemoteCacheConfig {
+  private LocalCacheConfig local;
+  private Integer invalidationDelayInMillis;
+
+  public NearCacheConfig() {
+    this.local = new LocalCacheConfig();
+    this.invalidationDelayInMillis = 10;
+  }
+
+  public NearCacheConfig setLocal(LocalCacheConfig local) {
+    this.local = local;
+    return this;
+  }
+
+  public NearCacheConfig setInvalidationDelayInMillis(Integer invalidationDelayInMillis) {
+    this.invalidationDelayInMillis = invalidationDelayInMillis;
+    return this;
+  }
+
+  @Override
+  public NearCacheConfig setHost(String host) {
+    return (NearCacheConfig) super.setHost(host);
+  }
+
+  @Override
+  public NearCacheConfig setCluster(Boolean cluster) {
+    return (NearCacheConfig) super.setCluster(cluster);
+  }
+
+  @Override
+  public NearCacheConfig setReadFrom(ReadFrom readFrom) {
+    return (NearCacheConfig) super.setReadFrom(readFrom);
+  }
+
+  @Override
+  public NearCacheConfig setScanCount(Integer scanCount) {
+    return (NearCacheConfig) super.setScanCount(scanCount);
+  }
+
+  @Override
+  public NearCacheConfig setValueSerializer(ValueSerializer valueSerializer) {
+    return (NearCacheConfig) super.setValueSerializer(valueSerializer);
+  }
+
+  @Override
+  public NearCacheConfig setCompressionThresholdInBytes(Integer compressionThresholdInBytes) {
+    return (NearCacheConfig) super.setCompressionThresholdInBytes(compressionThresholdInBytes);
+  }
+
+  @Override
+  public NearCacheConfig setHashKeys(Boolean hashKeys) {
+    return (NearCacheConfig) super.setHashKeys(hashKeys);
+  }
+
+  @Override
+  public NearCacheConfig setLoadLockLeaseInMillis(Integer loadLockLeaseInMillis) {
+    return (NearCacheConfig) super.setLoadLockLeaseInMillis(loadLockLeaseInMillis);
+  }
+
+  @Override
+  public NearCacheConfig setLoadLockPollInMillis(Integer loadLockPollInMillis) {
+    return (NearCacheConfig) super.setLoadLockPollInMillis(loadLockPollInMillis);
+  }
+
+  @Override
+  public NearCacheConfig setWriteBehindDelayInMillis(Integer writeBehindDelayInMillis) {
+    return (NearCacheConfig) super.setWriteBehindDelayInMillis(writeBehindDelayInMillis);
+  }
+
+  @Override
+  public NearCacheConfig setWriteBehindBatchSize(Integer writeBehindBatchSize) {
+    return (NearCacheConfig) super.setWriteBehindBatchSize(writeBehindBatchSize);
+  }
+
+  @Override
+  public NearCacheConfig setWriteBehindQueueSize(Integer writeBehindQueueSize) {
+    return (NearCacheConfig) super.setWriteBehindQueueSize(writeBehindQueueSize);
+  }
+
+  @Override
+  public NearCacheConfig setTtlInSeconds(Integer ttlInSeconds) {
+    return (NearCacheConfig) super.setTtlInSeconds(ttlInSeconds);
+  }
+
+  @Override
+  public NearCacheConfig setTtiInSeconds(Integer ttiInSeconds) {
+    return (NearCacheConfig) super.setTtiInSeconds(ttiInSeconds);
+  }
+
+  @Override
+  public NearCacheConfig setRefreshAheadFactor(Double refreshAheadFactor) {
+    return (NearCacheConfig) super.setRefreshAheadFactor(refreshAheadFactor);
+  }
+
+  @Override
+  public NearCacheConfig setSoftTtlInSeconds(Integer softTtlInSeconds) {
+    return (NearCacheConfig) super.setSoftTtlInSeconds(softTtlInSeconds);
+  }
+
+  @Override
+  public NearCacheConfig setRefreshExecutor(Executor refreshExecutor) {
+    return (NearCacheConfig) super.setRefreshExecutor(refreshExecutor);
+  }
+}
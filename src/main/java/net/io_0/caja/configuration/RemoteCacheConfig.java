@@ -2,13 +2,26 @@ package net.io_0.caja.configuration;
 
 import lombok.Getter;
 import lombok.ToString;
+import net.io_0.caja.serialization.JsonValueSerializer;
+import net.io_0.caja.serialization.ValueSerializer;
+import java.util.concurrent.Executor;
 
 import static net.io_0.caja.configuration.RemoteCacheConfig.ReadFrom.*;
 
 @Getter @ToString
 public class RemoteCacheConfig extends CacheConfig {
   private String host;
+  private Boolean cluster = false;
   private ReadFrom readFrom = UPSTREAM;
+  private Integer scanCount = 1000;
+  private ValueSerializer valueSerializer = new JsonValueSerializer();
+  private Integer compressionThresholdInBytes;
+  private Boolean hashKeys = false;
+  private Integer loadLockLeaseInMillis;
+  private Integer loadLockPollInMillis = 20;
+  private Integer writeBehindDelayInMillis;
+  private Integer writeBehindBatchSize = 1000;
+  private Integer writeBehindQueueSize = 100000;
 
   public RemoteCacheConfig() {
     this.host = "redis://localhost:6379/0";
@@ -19,16 +32,86 @@ public class RemoteCacheConfig extends CacheConfig {
     return this;
   }
 
+  public RemoteCacheConfig setCluster(Boolean cluster) {
+    this.cluster = cluster;
+    return this;
+  }
+
   public RemoteCacheConfig setReadFrom(ReadFrom readFrom) {
     this.readFrom = readFrom;
     return this;
   }
 
+  public RemoteCacheConfig setScanCount(Integer scanCount) {
+    this.scanCount = scanCount;
+    return this;
+  }
+
+  public RemoteCacheConfig setValueSerializer(ValueSerializer valueSerializer) {
+    this.valueSerializer = valueSerializer;
+    return this;
+  }
+
+  public RemoteCacheConfig setCompressionThresholdInBytes(Integer compressionThresholdInBytes) {
+    this.compressionThresholdInBytes = compressionThresholdInBytes;
+    return this;
+  }
+
+  public RemoteCacheConfig setHashKeys(Boolean hashKeys) {
+    this.hashKeys = hashKeys;
+    return this;
+  }
+
+  public RemoteCacheConfig setLoadLockLeaseInMillis(Integer loadLockLeaseInMillis) {
+    this.loadLockLeaseInMillis = loadLockLeaseInMillis;
+    return this;
+  }
+
+  public RemoteCacheConfig setLoadLockPollInMillis(Integer loadLockPollInMillis) {
+    this.loadLockPollInMillis = loadLockPollInMillis;
+    return this;
+  }
+
+  public RemoteCacheConfig setWriteBehindDelayInMillis(Integer writeBehindDelayInMillis) {
+    this.writeBehindDelayInMillis = writeBehindDelayInMillis;
+    return this;
+  }
+
+  public RemoteCacheConfig setWriteBehindBatchSize(Integer writeBehindBatchSize) {
+    this.writeBehindBatchSize = writeBehindBatchSize;
+    return this;
+  }
+
+  public RemoteCacheConfig setWriteBehindQueueSize(Integer writeBehindQueueSize) {
+    this.writeBehindQueueSize = writeBehindQueueSize;
+    return this;
+  }
+
   @Override
   public RemoteCacheConfig setTtlInSeconds(Integer ttlInSeconds) {
     return (RemoteCacheConfig) super.setTtlInSeconds(ttlInSeconds);
   }
 
+  @Override
+  public RemoteCacheConfig setTtiInSeconds(Integer ttiInSeconds) {
+    return (RemoteCacheConfig) super.setTtiInSeconds(ttiInSeconds);
+  }
+
+  @Override
+  public RemoteCacheConfig setRefreshAheadFactor(Double refreshAheadFactor) {
+    return (RemoteCacheConfig) super.setRefreshAheadFactor(refreshAheadFactor);
+  }
+
+  @Override
+  public RemoteCacheConfig setSoftTtlInSeconds(Integer softTtlInSeconds) {
+    return (RemoteCacheConfig) super.setSoftTtlInSeconds(softTtlInSeconds);
+  }
+
+  @Override
+  public RemoteCacheConfig setRefreshExecutor(Executor refreshExecutor) {
+    return (RemoteCacheConfig) super.setRefreshExecutor(refreshExecutor);
+  }
+
   public enum ReadFrom {
     UPSTREAM, UPSTREAM_PREFERRED, REPLICA, REPLICA_PREFERRED
   }
@@ -2,48 +2,114 @@ package net.io_0.caja.ehcache;
 
 import lombok.NoArgsConstructor;
 import net.io_0.caja.async.Cache;
+import net.io_0.caja.configuration.LocalCacheConfig;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
+import static java.util.Objects.isNull;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static lombok.AccessLevel.PRIVATE;
+import static net.io_0.caja.Expiring.checkTtl;
+import static net.io_0.caja.ehcache.EhcacheSyncWrapper.withoutAbsent;
 
 @NoArgsConstructor(access = PRIVATE)
 public class EhcacheAsyncWrapper {
-  public static <K, V> Cache<K, V> wrap(org.ehcache.Cache<K, V> cache) {
+  public static <K, V> Cache<K, V> wrap(org.ehcache.Cache<K, V> cache, LocalCacheConfig config) {
+    // heap operations take less than a thread hop, unless configured otherwise they complete on the calling thread,
+    // off-heap and disk tiers serialize and do I/O, which must not block the caller, e.g. a Lettuce event loop
+    Executor executor = config.getExecutor();
+    Executor inMemoryExecutor = config.getInlineCompletion() && isHeapOnly(config) ? Runnable::run : executor;
+
     return new Cache<>() {
       @Override
       public CompletableFuture<V> get(K key) {
-        return supplyAsync(() -> cache.get(key));
+        return supplyAsync(() -> cache.get(key), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+        return supplyAsync(() -> withoutAbsent(cache.getAll(new HashSet<>(keys))), inMemoryExecutor);
       }
 
       @Override
       public CompletableFuture<Void> put(K key, V value) {
-        return runAsync(() -> cache.put(key, value));
+        return runAsync(() -> cache.put(key, value), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+        Duration checked = checkTtl(ttl);
+        return runAsync(() -> VariableExpiryPolicy.withTtl(checked, () -> cache.put(key, value)), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<V> putIfAbsent(K key, V value) {
+        return supplyAsync(() -> cache.putIfAbsent(key, value), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+        Duration checked = checkTtl(ttl);
+        return supplyAsync(() -> VariableExpiryPolicy.withTtl(checked, () -> cache.putIfAbsent(key, value)), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+        return supplyAsync(() -> cache.replace(key, oldValue, newValue), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<Void> putAll(Map<K, V> entries) {
+        return runAsync(() -> cache.putAll(entries), inMemoryExecutor);
       }
 
       @Override
       public CompletableFuture<Boolean> containsKey(K key) {
-        return supplyAsync(() -> cache.containsKey(key));
+        return supplyAsync(() -> cache.containsKey(key), inMemoryExecutor);
       }
 
       @Override
       public CompletableFuture<List<K>> keys() {
-        return supplyAsync(() -> stream(cache.spliterator(), false).map(org.ehcache.Cache.Entry::getKey).collect(toList()));
+        return supplyAsync(() -> stream(cache.spliterator(), false).map(org.ehcache.Cache.Entry::getKey).collect(toList()), executor);
+      }
+
+      @Override
+      public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+        return runAsync(() -> cache.forEach(entry -> consumer.accept(entry.getKey())), executor);
       }
 
       @Override
       public CompletableFuture<Void> remove(K key) {
-        return runAsync(() -> cache.remove(key));
+        return runAsync(() -> cache.remove(key), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<Boolean> remove(K key, V value) {
+        return supplyAsync(() -> cache.remove(key, value), inMemoryExecutor);
+      }
+
+      @Override
+      public CompletableFuture<Void> removeAll(Collection<K> keys) {
+        return runAsync(() -> cache.removeAll(new HashSet<>(keys)), inMemoryExecutor);
       }
 
       @Override
       public CompletableFuture<Void> clear() {
-        return runAsync(cache::clear);
+        return runAsync(cache::clear, executor);
       }
     };
   }
+
+  private static boolean isHeapOnly(LocalCacheConfig config) {
+    return isNull(config.getOffHeapInMegaBytes()) && isNull(config.getDiskInMegaBytes());
+  }
 }
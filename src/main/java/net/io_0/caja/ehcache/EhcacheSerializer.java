@@ -0,0 +1,34 @@
+package net.io_0.caja.ehcache;
+
+import lombok.RequiredArgsConstructor;
+import net.io_0.caja.serialization.ValueSerializer;
+import org.ehcache.spi.serialization.Serializer;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Lets the off-heap and disk tiers of local caches store keys and values with a caja {@link ValueSerializer}, so
+ * neither has to implement {@link java.io.Serializable}.
+ *
+ * @param <T> the key or value type
+ */
+@RequiredArgsConstructor
+public class EhcacheSerializer<T> implements Serializer<T> {
+  private final ValueSerializer serializer;
+  private final Class<T> type;
+
+  @Override
+  public ByteBuffer serialize(T object) {
+    return serializer.serialize(object);
+  }
+
+  @Override @SuppressWarnings("unchecked")
+  public T read(ByteBuffer binary) {
+    return (T) serializer.deserialize(binary, type);
+  }
+
+  @Override
+  public boolean equals(T object, ByteBuffer binary) {
+    return Objects.equals(object, read(binary));
+  }
+}
@@ -0,0 +1,166 @@
+package net.io_0.caja.ehcache;
+
+import lombok.extern.slf4j.Slf4j;
+import net.io_0.caja.serialization.ValueSerializer;
+import org.ehcache.Cache;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Snapshot of a local cache in a file, so a restarted node comes up with the entries it had. A snapshot starts with
+ * a magic number, a version and the names of the key and value types, followed by the entries. Each entry is its
+ * expiry in epoch millis, its key and its value, keys and values serialized and prefixed by their length.
+ * Snapshots are written to a temporary file first and moved in place, a crash never leaves half a snapshot behind.
+ * They are read memory mapped, entries expired meanwhile are skipped.
+ *
+ * @param <K> the key type for the cache
+ * @param <V> the value type for the cache
+ */
+@Slf4j
+public class EhcacheSnapshot<K, V> {
+  private static final int MAGIC = 0x43414a41;
+  private static final int VERSION = 1;
+
+  private final String name;
+  private final Path file;
+  private final Cache<K, V> cache;
+  private final Class<K> keyType;
+  private final Class<V> valueType;
+  private final VariableExpiryPolicy expiry;
+  private final ValueSerializer serializer;
+  private boolean closed;
+
+  /**
+   * @param name the name of the cache
+   * @param file the file to write the snapshot to and restore it from
+   * @param cache the cache to snapshot
+   * @param keyType the key type of the cache
+   * @param valueType the value type of the cache
+   * @param expiry the expiry policy of the cache, tracking the expiry of entries
+   * @param serializer serializes keys and values
+   */
+  public EhcacheSnapshot(String name, Path file, Cache<K, V> cache, Class<K> keyType, Class<V> valueType, VariableExpiryPolicy expiry, ValueSerializer serializer) {
+    this.name = name;
+    this.file = file;
+    this.cache = cache;
+    this.keyType = keyType;
+    this.valueType = valueType;
+    this.expiry = expiry;
+    this.serializer = serializer;
+  }
+
+  /**
+   * Puts the entries of the snapshot that haven't expired yet into the cache, for the rest of their time to live.
+   * Entries the cache holds already are kept. A snapshot of other types, or an unreadable one, is ignored.
+   *
+   * @return number of entries restored
+   */
+  public int restore() {
+    if (!Files.isRegularFile(file)) return 0;
+
+    int restored = 0;
+    try (FileChannel channel = FileChannel.open(file, READ)) {
+      MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (snapshot.getInt() != MAGIC || snapshot.getInt() != VERSION
+        || !keyType.getName().equals(readString(snapshot)) || !valueType.getName().equals(readString(snapshot))) {
+        log.warn("{}: ignoring snapshot {} of other types or version", name, file);
+        return 0;
+      }
+
+      long now = System.currentTimeMillis();
+      while (snapshot.hasRemaining()) {
+        long expiresAt = snapshot.getLong();
+        ByteBuffer key = readBytes(snapshot);
+        ByteBuffer value = readBytes(snapshot);
+        if (expiresAt <= now) continue;
+
+        K restoredKey = keyType.cast(serializer.deserialize(key, keyType));
+        V restoredValue = valueType.cast(serializer.deserialize(value, valueType));
+        VariableExpiryPolicy.withTtl(Duration.ofMillis(expiresAt - now), () -> cache.putIfAbsent(restoredKey, restoredValue));
+        restored++;
+      }
+      log.debug("{}: restored {} entries from snapshot {}", name, restored, file);
+    } catch (IOException | RuntimeException e) {
+      log.warn("{}: failed to restore snapshot {} after {} entries", name, file, restored, e);
+    }
+    return restored;
+  }
+
+  /**
+   * Writes the entries of the cache that haven't expired to the snapshot, replacing the previous one.
+   */
+  public synchronized void write() {
+    if (closed) return;
+
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(file.getParent());
+      Set<K> keys = new HashSet<>();
+      long now = System.currentTimeMillis();
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeBytes(out, ByteBuffer.wrap(keyType.getName().getBytes(UTF_8)));
+        writeBytes(out, ByteBuffer.wrap(valueType.getName().getBytes(UTF_8)));
+        for (Cache.Entry<K, V> entry : cache) {
+          keys.add(entry.getKey());
+          long expiresAt = expiry.expiresAt(entry.getKey(), now);
+          if (expiresAt <= now) continue;
+
+          out.writeLong(expiresAt);
+          writeBytes(out, serializer.serialize(entry.getKey()));
+          writeBytes(out, serializer.serialize(entry.getValue()));
+        }
+      }
+      Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+      expiry.retain(keys);
+      log.debug("{}: wrote {} entries to snapshot {}", name, keys.size(), file);
+    } catch (IOException | RuntimeException e) {
+      log.warn("{}: failed to write snapshot {}", name, file, e);
+    }
+  }
+
+  /**
+   * Writes the last snapshot, before the cache is closed. Periodic writes still pending are skipped from then on.
+   */
+  public synchronized void close() {
+    write();
+    closed = true;
+  }
+
+  private static void writeBytes(DataOutputStream out, ByteBuffer bytes) throws IOException {
+    out.writeInt(bytes.remaining());
+    if (bytes.hasArray()) {
+      out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    } else {
+      byte[] copy = new byte[bytes.remaining()];
+      bytes.get(copy);
+      out.write(copy);
+    }
+  }
+
+  private static ByteBuffer readBytes(ByteBuffer snapshot) {
+    int length = snapshot.getInt();
+    ByteBuffer bytes = snapshot.slice(snapshot.position(), length);
+    snapshot.position(snapshot.position() + length);
+    return bytes;
+  }
+
+  private static String readString(ByteBuffer snapshot) {
+    return UTF_8.decode(readBytes(snapshot)).toString();
+  }
+}
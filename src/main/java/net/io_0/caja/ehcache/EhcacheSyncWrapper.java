@@ -2,11 +2,18 @@ package net.io_0.caja.ehcache;
 
 import lombok.NoArgsConstructor;
 import net.io_0.caja.sync.Cache;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.*;
 import static java.util.stream.StreamSupport.stream;
 import static lombok.AccessLevel.PRIVATE;
+import static net.io_0.caja.Expiring.checkTtl;
 
 @NoArgsConstructor(access = PRIVATE)
 public class EhcacheSyncWrapper {
@@ -17,11 +24,41 @@ public class EhcacheSyncWrapper {
         return cache.get(key);
       }
 
+      @Override
+      public Map<K, V> getAll(Collection<K> keys) {
+        return withoutAbsent(cache.getAll(new HashSet<>(keys)));
+      }
+
       @Override
       public void put(K key, V value) {
         cache.put(key, value);
       }
 
+      @Override
+      public void put(K key, V value, Duration ttl) {
+        VariableExpiryPolicy.withTtl(checkTtl(ttl), () -> cache.put(key, value));
+      }
+
+      @Override
+      public V putIfAbsent(K key, V value) {
+        return cache.putIfAbsent(key, value);
+      }
+
+      @Override
+      public V putIfAbsent(K key, V value, Duration ttl) {
+        return VariableExpiryPolicy.withTtl(checkTtl(ttl), () -> cache.putIfAbsent(key, value));
+      }
+
+      @Override
+      public boolean replace(K key, V oldValue, V newValue) {
+        return cache.replace(key, oldValue, newValue);
+      }
+
+      @Override
+      public void putAll(Map<K, V> entries) {
+        cache.putAll(entries);
+      }
+
       @Override
       public boolean containsKey(K key) {
         return cache.containsKey(key);
@@ -29,7 +66,12 @@ public class EhcacheSyncWrapper {
 
       @Override
       public List<K> keys() {
-        return stream(cache.spliterator(), false).map(org.ehcache.Cache.Entry::getKey).collect(toList());
+        return streamKeys().collect(toList());
+      }
+
+      @Override
+      public Stream<K> streamKeys() {
+        return stream(cache.spliterator(), false).map(org.ehcache.Cache.Entry::getKey);
       }
 
       @Override
@@ -37,10 +79,26 @@ public class EhcacheSyncWrapper {
         cache.remove(key);
       }
 
+      @Override
+      public boolean remove(K key, V value) {
+        return cache.remove(key, value);
+      }
+
+      @Override
+      public void removeAll(Collection<K> keys) {
+        cache.removeAll(new HashSet<>(keys));
+      }
+
       @Override
       public void clear() {
         cache.clear();
       }
     };
   }
+
+  static <K, V> Map<K, V> withoutAbsent(Map<K, V> values) {
+    return values.entrySet().stream()
+      .filter(entry -> nonNull(entry.getValue()))
+      .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
 }
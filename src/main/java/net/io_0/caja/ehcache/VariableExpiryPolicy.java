@@ -0,0 +1,135 @@
+package net.io_0.caja.ehcache;
+
+import net.io_0.caja.Sweeper;
+import org.ehcache.expiry.ExpiryPolicy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Expires entries after the time to live of the cache, or the one given for a single write with {@link #withTtl}.
+ * With a time to idle, entries also expire once they haven't been read for that time, each read postpones expiry, but
+ * never past the time to live the entry was written with. Ehcache keeps the expiry of its entries to itself, so the
+ * policy tracks the deadlines of written entries for that, and can track their expiry for snapshots of the cache.
+ */
+public class VariableExpiryPolicy implements ExpiryPolicy<Object, Object> {
+  private static final ThreadLocal<Duration> writeTtl = new ThreadLocal<>();
+
+  private final Duration ttl;
+  private final Duration tti;
+  private final Map<Object, Long> expiresAt;
+  private final Map<Object, Long> deadlines;
+
+  /**
+   * @param ttl the time to live of entries written without a time to live of their own
+   * @param tti the time to idle, {@code null} if entries shouldn't expire when idle
+   * @param scheduler sweeps passed deadlines once per time to live
+   */
+  public VariableExpiryPolicy(Duration ttl, Duration tti, ScheduledExecutorService scheduler) {
+    this(ttl, tti, false, scheduler);
+  }
+
+  /**
+   * @param ttl the time to live of entries written without a time to live of their own
+   * @param tti the time to idle, {@code null} if entries shouldn't expire when idle
+   * @param tracking whether to track when entries expire, see {@link #expiresAt(Object, long)}
+   * @param scheduler sweeps passed deadlines once per time to live
+   */
+  public VariableExpiryPolicy(Duration ttl, Duration tti, boolean tracking, ScheduledExecutorService scheduler) {
+    this.ttl = ttl;
+    this.tti = tti;
+    this.expiresAt = tracking ? new ConcurrentHashMap<>() : null;
+    this.deadlines = isNull(tti) ? null : new ConcurrentHashMap<>();
+    if (nonNull(deadlines)) Sweeper.sweep(deadlines, deadline -> deadline <= System.currentTimeMillis(), ttl, scheduler);
+  }
+
+  /**
+   * Runs a write of the calling thread, which expires the written entries after the given time to live.
+   */
+  public static void withTtl(Duration ttl, Runnable write) {
+    withTtl(ttl, () -> {
+      write.run();
+      return null;
+    });
+  }
+
+  /**
+   * Runs a write of the calling thread, which expires the written entries after the given time to live.
+   *
+   * @return the result of the write
+   */
+  public static <T> T withTtl(Duration ttl, Supplier<T> write) {
+    writeTtl.set(ttl);
+    try {
+      return write.get();
+    } finally {
+      writeTtl.remove();
+    }
+  }
+
+  /**
+   * @param key the key of an entry in the cache
+   * @param now the current time in epoch millis
+   * @return when the entry expires in epoch millis, if untracked after the time to live of the cache
+   */
+  public long expiresAt(Object key, long now) {
+    Long tracked = isNull(expiresAt) ? null : expiresAt.get(key);
+    return isNull(tracked) ? now + ttl.toMillis() : tracked;
+  }
+
+  /**
+   * Forgets the expiry of entries no longer in the cache.
+   *
+   * @param keys the keys of all entries in the cache
+   */
+  public void retain(Set<?> keys) {
+    if (nonNull(expiresAt)) expiresAt.keySet().retainAll(keys);
+  }
+
+  @Override
+  public Duration getExpiryForCreation(Object key, Object value) {
+    Duration expiry = writeTtl.get();
+    if (isNull(expiry)) expiry = ttl;
+    if (isNull(tti)) return track(key, expiry);
+
+    remember(key, expiry);
+    return track(key, tti.compareTo(expiry) < 0 ? tti : expiry);
+  }
+
+  @Override
+  public Duration getExpiryForAccess(Object key, Supplier<?> value) {
+    if (isNull(tti)) return null;
+
+    // reads postpone expiry by the time to idle, up to the deadline of the entry
+    Long deadline = deadlines.get(key);
+    if (isNull(deadline)) return track(key, tti);
+    Duration remaining = Duration.ofMillis(Math.max(0, deadline - System.currentTimeMillis()));
+    return track(key, remaining.compareTo(tti) < 0 ? remaining : tti);
+  }
+
+  @Override
+  public Duration getExpiryForUpdate(Object key, Supplier<?> oldValue, Object newValue) {
+    return getExpiryForCreation(key, newValue);
+  }
+
+  /**
+   * Remembers the deadline of a written entry. Deadlines passed are swept on the scheduler, their entries are expired
+   * by then, so only the deadlines of entries written within their time to live are kept.
+   */
+  private void remember(Object key, Duration expiry) {
+    deadlines.put(key, INFINITE.equals(expiry) ? Long.MAX_VALUE : System.currentTimeMillis() + expiry.toMillis());
+  }
+
+  private Duration track(Object key, Duration expiry) {
+    if (nonNull(expiresAt) && nonNull(expiry)) {
+      expiresAt.put(key, INFINITE.equals(expiry) ? Long.MAX_VALUE : System.currentTimeMillis() + expiry.toMillis());
+    }
+    return expiry;
+  }
+}
@@ -0,0 +1,89 @@
+package net.io_0.caja.ehcache;
+
+import lombok.Getter;
+import net.io_0.caja.sizing.Weigher;
+import org.ehcache.config.ResourceUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.spi.service.ServiceFactory;
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.spi.store.heap.SizeOfEngineProvider;
+import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
+import org.ehcache.spi.service.Service;
+import org.ehcache.spi.service.ServiceConfiguration;
+import org.ehcache.spi.service.ServiceProvider;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+
+/**
+ * Replaces the reflective size-of engine of Ehcache, which the module system keeps from looking into most JDK
+ * classes, with a {@link Weigher} per cache. Heaps sized in entries are left to Ehcache.
+ * <p>
+ * The size-of SPI is deprecated in Ehcache 3 without a replacement, yet it is the only way to size heaps in bytes.
+ * All use of it is kept in this class.
+ */
+@SuppressWarnings("deprecation")
+public class WeighingSizeOfEngineProvider implements SizeOfEngineProvider {
+  /**
+   * The default provider of Ehcache, the on-heap store only recognizes heaps sized in entries by its engine.
+   */
+  private final SizeOfEngineProvider entryCounting = defaultProvider();
+
+  @Override
+  public SizeOfEngine createSizeOfEngine(ResourceUnit resourceUnit, ServiceConfiguration<?, ?>... serviceConfigs) {
+    // Ehcache tells heaps sized in entries by this engine
+    if (!(resourceUnit instanceof MemoryUnit)) return entryCounting.createSizeOfEngine(resourceUnit, serviceConfigs);
+
+    return Arrays.stream(serviceConfigs)
+      .filter(WeigherConfiguration.class::isInstance)
+      .map(config -> weighingEach(((WeigherConfiguration) config).getWeigher()))
+      .findFirst()
+      .orElseThrow(() -> new IllegalStateException("Heaps sized in bytes need a weigher"));
+  }
+
+  @Override
+  public void start(ServiceProvider<Service> serviceProvider) {
+    entryCounting.start(serviceProvider);
+  }
+
+  @Override
+  public void stop() {
+    entryCounting.stop();
+  }
+
+  /**
+   * Looks the default provider up the way Ehcache does, as its class is internal.
+   */
+  @SuppressWarnings("unchecked")
+  private static SizeOfEngineProvider defaultProvider() {
+    return ServiceLoader.load(ServiceFactory.class, WeighingSizeOfEngineProvider.class.getClassLoader()).stream()
+      .map(ServiceLoader.Provider::get)
+      .filter(factory -> SizeOfEngineProvider.class.isAssignableFrom(factory.getServiceType()))
+      .map(factory -> (SizeOfEngineProvider) factory.create(null))
+      .findFirst()
+      .orElseThrow(() -> new IllegalStateException("Ehcache provides no size-of engine"));
+  }
+
+  private static SizeOfEngine weighingEach(Weigher weigher) {
+    return new SizeOfEngine() {
+      @Override
+      public <K, V> long sizeof(K key, Store.ValueHolder<V> holder) {
+        return weigher.weigh(key, holder.get());
+      }
+    };
+  }
+
+  /**
+   * Hands the weigher of a cache to the engine provider.
+   */
+  @Getter
+  public static class WeigherConfiguration extends DefaultSizeOfEngineConfiguration {
+    private final Weigher weigher;
+
+    public WeigherConfiguration(Weigher weigher) {
+      super(DEFAULT_MAX_OBJECT_SIZE, DEFAULT_UNIT, DEFAULT_OBJECT_GRAPH_SIZE);
+      this.weigher = weigher;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package net.io_0.caja.near;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Message telling other nodes which keys of a near cache to drop from their local tier.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter @Setter
+public class Invalidation {
+  private String origin;
+  private List<String> keys;
+  private boolean all;
+}
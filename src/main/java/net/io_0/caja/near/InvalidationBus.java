@@ -0,0 +1,91 @@
+package net.io_0.caja.near;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import lombok.extern.slf4j.Slf4j;
+import net.io_0.maja.mapping.Mapper;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Publishes and receives {@link Invalidation invalidations} of one Redis host. Invalidations published by this bus
+ * are not handed back to its own subscribers.
+ */
+@Slf4j
+public class InvalidationBus {
+  private final String origin;
+  private final StatefulConnection<String, String> publishing;
+  private final RedisClusterAsyncCommands<String, String> publisher;
+  private final StatefulRedisPubSubConnection<String, String> subscribing;
+  private final Map<String, Consumer<Invalidation>> handlers = new ConcurrentHashMap<>();
+
+  public InvalidationBus(String origin, RedisClient client) {
+    this(origin, client.connect(), client.connectPubSub());
+  }
+
+  /**
+   * Messages published to a cluster reach the subscribers of every node.
+   */
+  public InvalidationBus(String origin, RedisClusterClient client) {
+    this(origin, client.connect(), client.connectPubSub());
+  }
+
+  private InvalidationBus(String origin, StatefulRedisConnection<String, String> publishing, StatefulRedisPubSubConnection<String, String> subscribing) {
+    this(origin, publishing, publishing.async(), subscribing);
+  }
+
+  private InvalidationBus(String origin, StatefulRedisClusterConnection<String, String> publishing, StatefulRedisPubSubConnection<String, String> subscribing) {
+    this(origin, publishing, publishing.async(), subscribing);
+  }
+
+  private InvalidationBus(String origin, StatefulConnection<String, String> publishing, RedisClusterAsyncCommands<String, String> publisher, StatefulRedisPubSubConnection<String, String> subscribing) {
+    this.origin = origin;
+    this.publishing = publishing;
+    this.publisher = publisher;
+    this.subscribing = subscribing;
+    this.subscribing.addListener(new RedisPubSubAdapter<>() {
+      @Override
+      public void message(String channel, String message) {
+        receive(channel, message);
+      }
+    });
+  }
+
+  public CompletableFuture<Void> publish(String channel, Invalidation invalidation) {
+    invalidation.setOrigin(origin);
+    return publisher.publish(channel, Mapper.toJson(invalidation)).toCompletableFuture().thenApply(ignore -> null);
+  }
+
+  public void subscribe(String channel, Consumer<Invalidation> handler) {
+    handlers.put(channel, handler);
+    subscribing.sync().subscribe(channel);
+  }
+
+  public void close() {
+    subscribing.close();
+    publishing.close();
+  }
+
+  private void receive(String channel, String message) {
+    Consumer<Invalidation> handler = handlers.get(channel);
+    if (isNull(handler)) return;
+
+    try {
+      Invalidation invalidation = Mapper.fromJson(message, Invalidation.class);
+      if (!origin.equals(invalidation.getOrigin())) handler.accept(invalidation);
+    } catch (RuntimeException e) {
+      log.warn("{}: failed to apply invalidation", channel, e);
+    }
+  }
+}
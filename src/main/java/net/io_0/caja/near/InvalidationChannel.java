@@ -0,0 +1,85 @@
+package net.io_0.caja.near;
+
+import io.lettuce.core.codec.RedisCodec;
+import net.io_0.caja.redis.KeyOrWildcard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.lettuce.core.codec.StringCodec.UTF8;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Invalidation channel of one near cache. Invalidated keys are coalesced for a short delay and published as one
+ * message, received invalidations are applied to the local tier on the given executor, off the event loop of the
+ * pub/sub connection, which clearing or removing from lower tiers would hold up.
+ *
+ * @param <K> the key type for the cache
+ */
+public class InvalidationChannel<K> implements Invalidations<K> {
+  private final String channel;
+  private final RedisCodec<KeyOrWildcard<K>, ?> codec;
+  private final InvalidationBus bus;
+  private final ScheduledExecutorService scheduler;
+  private final Duration delay;
+  private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean pendingAll = new AtomicBoolean();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  public InvalidationChannel(String name, RedisCodec<KeyOrWildcard<K>, ?> codec, InvalidationBus bus, org.ehcache.Cache<K, ?> localCache, Executor executor, ScheduledExecutorService scheduler, Duration delay) {
+    this.channel = "caja/invalidations/" + name;
+    this.codec = codec;
+    this.bus = bus;
+    this.scheduler = scheduler;
+    this.delay = delay;
+
+    bus.subscribe(channel, invalidation -> executor.execute(() -> {
+      if (invalidation.isAll()) localCache.clear();
+      else invalidation.getKeys().forEach(key -> localCache.remove(codec.decodeKey(UTF8.encodeValue(key)).getKey()));
+    }));
+  }
+
+  @Override
+  public void invalidate(K key) {
+    pendingKeys.add(UTF8.decodeKey(codec.encodeKey(KeyOrWildcard.key(key))));
+    schedule();
+  }
+
+  @Override
+  public void invalidateAll() {
+    pendingAll.set(true);
+    schedule();
+  }
+
+  /**
+   * Publishes pending invalidations right away.
+   *
+   * @return completes once published
+   */
+  public CompletableFuture<Void> flush() {
+    scheduled.set(false);
+
+    boolean all = pendingAll.getAndSet(false);
+    List<String> keys = new ArrayList<>();
+    for (Iterator<String> pending = pendingKeys.iterator(); pending.hasNext(); ) {
+      keys.add(pending.next());
+      pending.remove();
+    }
+
+    if (!all && keys.isEmpty()) return completedFuture(null);
+    return bus.publish(channel, new Invalidation(null, all ? List.of() : keys, all));
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) scheduler.schedule(this::flush, delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+}
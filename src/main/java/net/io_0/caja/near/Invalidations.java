@@ -0,0 +1,30 @@
+package net.io_0.caja.near;
+
+/**
+ * Propagates changes of a near cache to the local tiers of other nodes.
+ *
+ * @param <K> the key type for the cache
+ */
+public interface Invalidations<K> {
+  /**
+   * Invalidates the mapping of the given key on other nodes.
+   *
+   * @param key the changed or removed key
+   */
+  void invalidate(K key);
+
+  /**
+   * Invalidates all mappings on other nodes.
+   */
+  void invalidateAll();
+
+  static <K> Invalidations<K> none() {
+    return new Invalidations<>() {
+      @Override
+      public void invalidate(K key) { }
+
+      @Override
+      public void invalidateAll() { }
+    };
+  }
+}
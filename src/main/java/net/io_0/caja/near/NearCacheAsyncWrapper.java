@@ -0,0 +1,142 @@
+package net.io_0.caja.near;
+
+import lombok.NoArgsConstructor;
+import net.io_0.caja.async.Cache;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static lombok.AccessLevel.PRIVATE;
+import static net.io_0.caja.near.NearCacheSyncWrapper.missing;
+
+/**
+ * Async counterpart of {@link NearCacheSyncWrapper}.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public class NearCacheAsyncWrapper {
+  public static <K, V> Cache<K, V> wrap(Cache<K, V> local, Cache<K, V> remote, Invalidations<K> invalidations) {
+    return new Cache<>() {
+      @Override
+      public CompletableFuture<V> get(K key) {
+        return local.get(key).thenCompose(value -> isNull(value)
+          ? remote.get(key).thenCompose(loaded -> isNull(loaded) ? completedFuture(null) : local.put(key, loaded).thenApply(nothing -> loaded))
+          : completedFuture(value)
+        );
+      }
+
+      @Override
+      public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+        return local.getAll(keys).thenCompose(found -> {
+          Map<K, V> values = new HashMap<>(found);
+          List<K> missing = missing(keys, values);
+          if (missing.isEmpty()) return completedFuture(values);
+
+          return remote.getAll(missing).thenCompose(loaded -> local.putAll(loaded).thenApply(nothing -> {
+            values.putAll(loaded);
+            return values;
+          }));
+        });
+      }
+
+      @Override
+      public CompletableFuture<Void> put(K key, V value) {
+        return remote.put(key, value).thenCompose(nothing -> local.put(key, value))
+          .thenRun(() -> invalidations.invalidate(key));
+      }
+
+      @Override
+      public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+        return remote.put(key, value, ttl).thenCompose(nothing -> local.put(key, value, ttl))
+          .thenRun(() -> invalidations.invalidate(key));
+      }
+
+      @Override
+      public CompletableFuture<V> putIfAbsent(K key, V value) {
+        return remote.putIfAbsent(key, value).thenCompose(present -> nonNull(present)
+          ? local.put(key, present).thenApply(nothing -> present)
+          : local.put(key, value).thenApply(nothing -> {
+            invalidations.invalidate(key);
+            return null;
+          })
+        );
+      }
+
+      @Override
+      public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+        return remote.putIfAbsent(key, value, ttl).thenCompose(present -> nonNull(present)
+          ? local.put(key, present).thenApply(nothing -> present)
+          : local.put(key, value, ttl).thenApply(nothing -> {
+            invalidations.invalidate(key);
+            return null;
+          })
+        );
+      }
+
+      @Override
+      public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+        return remote.replace(key, oldValue, newValue).thenCompose(replaced -> replaced
+          ? local.put(key, newValue).thenApply(nothing -> {
+            invalidations.invalidate(key);
+            return true;
+          })
+          // the local tier may hold an outdated value, which let the comparison fail
+          : local.remove(key).thenApply(nothing -> false)
+        );
+      }
+
+      @Override
+      public CompletableFuture<Void> putAll(Map<K, V> entries) {
+        return remote.putAll(entries).thenCompose(nothing -> local.putAll(entries))
+          .thenRun(() -> entries.keySet().forEach(invalidations::invalidate));
+      }
+
+      @Override
+      public CompletableFuture<Boolean> containsKey(K key) {
+        return local.containsKey(key).thenCompose(isKeyPresent -> isKeyPresent ? completedFuture(true) : remote.containsKey(key));
+      }
+
+      @Override
+      public CompletableFuture<List<K>> keys() {
+        return remote.keys();
+      }
+
+      @Override
+      public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+        return remote.streamKeys(consumer);
+      }
+
+      @Override
+      public CompletableFuture<Void> remove(K key) {
+        return remote.remove(key).thenCompose(nothing -> local.remove(key))
+          .thenRun(() -> invalidations.invalidate(key));
+      }
+
+      @Override
+      public CompletableFuture<Boolean> remove(K key, V value) {
+        return remote.remove(key, value).thenCompose(removed -> local.remove(key).thenApply(nothing -> {
+          if (removed) invalidations.invalidate(key);
+          return removed;
+        }));
+      }
+
+      @Override
+      public CompletableFuture<Void> removeAll(Collection<K> keys) {
+        return remote.removeAll(keys).thenCompose(nothing -> local.removeAll(keys))
+          .thenRun(() -> keys.forEach(invalidations::invalidate));
+      }
+
+      @Override
+      public CompletableFuture<Void> clear() {
+        return remote.clear().thenCompose(nothing -> local.clear())
+          .thenRun(invalidations::invalidateAll);
+      }
+    };
+  }
+}
@@ -0,0 +1,153 @@
+package net.io_0.caja.near;
+
+import lombok.NoArgsConstructor;
+import net.io_0.caja.sync.Cache;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Puts a local tier in front of a remote tier. Reads are served by the local tier and read through to the remote
+ * tier on a miss, writes go through to both tiers and invalidate the local tiers of other nodes.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public class NearCacheSyncWrapper {
+  public static <K, V> Cache<K, V> wrap(Cache<K, V> local, Cache<K, V> remote, Invalidations<K> invalidations) {
+    return new Cache<>() {
+      @Override
+      public V get(K key) {
+        V value = local.get(key);
+        if (nonNull(value)) return value;
+
+        value = remote.get(key);
+        if (nonNull(value)) local.put(key, value);
+        return value;
+      }
+
+      @Override
+      public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<>(local.getAll(keys));
+        List<K> missing = missing(keys, values);
+        if (missing.isEmpty()) return values;
+
+        Map<K, V> loaded = remote.getAll(missing);
+        local.putAll(loaded);
+        values.putAll(loaded);
+        return values;
+      }
+
+      @Override
+      public void put(K key, V value) {
+        remote.put(key, value);
+        local.put(key, value);
+        invalidations.invalidate(key);
+      }
+
+      @Override
+      public void put(K key, V value, Duration ttl) {
+        remote.put(key, value, ttl);
+        local.put(key, value, ttl);
+        invalidations.invalidate(key);
+      }
+
+      @Override
+      public V putIfAbsent(K key, V value) {
+        V present = remote.putIfAbsent(key, value);
+        if (nonNull(present)) {
+          local.put(key, present);
+          return present;
+        }
+        local.put(key, value);
+        invalidations.invalidate(key);
+        return null;
+      }
+
+      @Override
+      public V putIfAbsent(K key, V value, Duration ttl) {
+        V present = remote.putIfAbsent(key, value, ttl);
+        if (nonNull(present)) {
+          local.put(key, present);
+          return present;
+        }
+        local.put(key, value, ttl);
+        invalidations.invalidate(key);
+        return null;
+      }
+
+      @Override
+      public boolean replace(K key, V oldValue, V newValue) {
+        boolean replaced = remote.replace(key, oldValue, newValue);
+        if (replaced) {
+          local.put(key, newValue);
+          invalidations.invalidate(key);
+        } else {
+          // the local tier may hold an outdated value, which let the comparison fail
+          local.remove(key);
+        }
+        return replaced;
+      }
+
+      @Override
+      public void putAll(Map<K, V> entries) {
+        remote.putAll(entries);
+        local.putAll(entries);
+        entries.keySet().forEach(invalidations::invalidate);
+      }
+
+      @Override
+      public boolean containsKey(K key) {
+        return local.containsKey(key) || remote.containsKey(key);
+      }
+
+      @Override
+      public List<K> keys() {
+        return remote.keys();
+      }
+
+      @Override
+      public Stream<K> streamKeys() {
+        return remote.streamKeys();
+      }
+
+      @Override
+      public void remove(K key) {
+        remote.remove(key);
+        local.remove(key);
+        invalidations.invalidate(key);
+      }
+
+      @Override
+      public boolean remove(K key, V value) {
+        boolean removed = remote.remove(key, value);
+        local.remove(key);
+        if (removed) invalidations.invalidate(key);
+        return removed;
+      }
+
+      @Override
+      public void removeAll(Collection<K> keys) {
+        remote.removeAll(keys);
+        local.removeAll(keys);
+        keys.forEach(invalidations::invalidate);
+      }
+
+      @Override
+      public void clear() {
+        remote.clear();
+        local.clear();
+        invalidations.invalidateAll();
+      }
+    };
+  }
+
+  static <K> List<K> missing(Collection<K> keys, Map<K, ?> found) {
+    return keys.stream().filter(key -> !found.containsKey(key)).collect(toList());
+  }
+}
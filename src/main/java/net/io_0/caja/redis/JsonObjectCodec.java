@@ -3,63 +3,185 @@ package net.io_0.caja.redis;
 import io.lettuce.core.codec.RedisCodec;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import net.io_0.caja.serialization.JsonValueSerializer;
+import net.io_0.caja.serialization.ValueSerializer;
 import net.io_0.maja.mapping.Mapper;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
 import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
 import java.util.UUID;
-import java.util.function.Predicate;
+import java.util.function.Function;
 
 import static io.lettuce.core.codec.StringCodec.UTF8;
-import static org.apache.commons.lang3.StringUtils.removeStart;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
+/**
+ * Keys of simple types (strings, UUIDs, boxed primitives, enums, instants and records of primitives) are encoded as
+ * text after the cache name, others as JSON documents holding the cache name and the key. How keys are encoded is
+ * resolved once, when the codec is created.
+ * <p>
+ * With hashed keys, keys that aren't simple are stored as the cache name and a fixed-length hash of their JSON
+ * instead, separated by {@code #/}, so they share no prefix with text keys, whatever those start with. Their JSON is put in front of the value, so the keys of the cache can still be listed, and values of
+ * another key with the same hash are told apart and read as absent.
+ */
 @Slf4j
 public class JsonObjectCodec<K, C extends KeyOrWildcard<K>, V> implements RedisCodec<C, V> {
   private final String cacheName;
   private final Class<K> keyType;
   private final Class<V> valueType;
   private final Class<?>[] subTypes;
+  private final ValueSerializer valueSerializer;
+  private final TextKey<K> textKey;
+  private final byte[] prefix;
+  private final boolean hashingKeys;
 
   private static final String SEPARATOR = "/";
-  private static final Predicate<Class<?>> isSimpleKeyType = isAnyOf(String.class, UUID.class, Integer.class, Long.class);
+  private static final String COMPONENT_SEPARATOR = ":";
+  private static final String HASH_SEPARATOR = "#/";
+  private static final int HASH_LENGTH_IN_BYTES = 16;
+  private static final Map<Class<?>, Function<String, ?>> SIMPLE_KEY_PARSERS = Map.of(
+    String.class, key -> key,
+    UUID.class, UUID::fromString,
+    Integer.class, Integer::valueOf,
+    Long.class, Long::valueOf,
+    Short.class, Short::valueOf,
+    Byte.class, Byte::valueOf,
+    Character.class, key -> key.charAt(0),
+    Instant.class, Instant::parse
+  );
 
   public JsonObjectCodec(String cacheName, Class<K> keyType, Class<V> valueType, Class<?>... subTypes) {
+    this(cacheName, keyType, valueType, new JsonValueSerializer(), subTypes);
+  }
+
+  public JsonObjectCodec(String cacheName, Class<K> keyType, Class<V> valueType, ValueSerializer valueSerializer, Class<?>... subTypes) {
+    this(cacheName, keyType, valueType, valueSerializer, false, subTypes);
+  }
+
+  /**
+   * @param hashKeys whether keys that aren't simple are stored hashed, see {@link #isHashingKeys()}
+   */
+  public JsonObjectCodec(String cacheName, Class<K> keyType, Class<V> valueType, ValueSerializer valueSerializer, boolean hashKeys, Class<?>... subTypes) {
     this.cacheName = cacheName;
     this.keyType = keyType;
     this.valueType = valueType;
     this.subTypes = subTypes;
+    this.valueSerializer = valueSerializer;
+    this.textKey = textKey(keyType);
+    this.prefix = (cacheName + SEPARATOR).getBytes(UTF_8);
+    this.hashingKeys = hashKeys && isNull(textKey);
+  }
+
+  /**
+   * @return whether keys are stored hashed, with their JSON in front of the value. Such keys can't be decoded, their
+   * values have to be encoded and decoded together with their key.
+   */
+  public boolean isHashingKeys() {
+    return hashingKeys;
   }
 
   @Override @SuppressWarnings("unchecked")
   public C decodeKey(ByteBuffer bytes) {
-    if (isSimpleKeyType.test(keyType)) {
-      return (C) KeyOrWildcard.key((K) decodeSimpleKey(removeStart(UTF8.decodeValue(bytes), cacheName + SEPARATOR), keyType));
+    if (nonNull(textKey)) {
+      ByteBuffer key = bytes.duplicate();
+      key.position(key.position() + prefix.length);
+      return (C) KeyOrWildcard.key(textKey.parse.apply(UTF_8.decode(key).toString()));
+    }
+    if (hashingKeys) {
+      throw new UnsupportedOperationException("Hashed keys can't be decoded, decode the key embedded in the value");
     }
     return (C) KeyOrWildcard.key(Mapper.fromJson(UTF8.decodeValue(bytes), NameSpaceAndKey.class, keyType).key);
   }
 
   @Override @SuppressWarnings("unchecked")
   public V decodeValue(ByteBuffer bytes) {
-    return (V) decode(bytes, valueType, subTypes);
+    return (V) valueSerializer.deserialize(bytes, valueType, subTypes);
   }
 
-  @Override
+  @Override @SuppressWarnings("unchecked")
   public ByteBuffer encodeKey(KeyOrWildcard keyOrWildcard) {
     if (keyOrWildcard.isWildcard()) {
-      if (isSimpleKeyType.test(keyType)) {
-        return UTF8.encodeValue(cacheName + SEPARATOR + "*");
-      }
-      return UTF8.encodeValue("{\"ns\":\""+cacheName+"\",*");
+      return UTF8.encodeValue(keyPattern());
     }
 
-    if (isSimpleKeyType.test(keyType)) {
-      return UTF8.encodeValue(cacheName + SEPARATOR + keyOrWildcard.getKey());
+    if (nonNull(textKey)) {
+      byte[] key = textKey.format.apply((K) keyOrWildcard.getKey()).getBytes(UTF_8);
+      byte[] encoded = Arrays.copyOf(prefix, prefix.length + key.length);
+      System.arraycopy(key, 0, encoded, prefix.length, key.length);
+      return ByteBuffer.wrap(encoded);
+    }
+    if (hashingKeys) {
+      byte[] hash = Arrays.copyOf(sha256(canonical(keyOrWildcard.getKey())), HASH_LENGTH_IN_BYTES);
+      return UTF8.encodeValue(cacheName + HASH_SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(hash));
     }
     return encode(new NameSpaceAndKey<>(cacheName, keyOrWildcard.getKey()));
   }
 
   @Override
   public ByteBuffer encodeValue(V value) {
-    return encode(value);
+    return valueSerializer.serialize(value);
+  }
+
+  /**
+   * @return the encoded value, with the JSON of the key in front of it if keys are hashed
+   */
+  public ByteBuffer encodeValue(K key, V value) {
+    return withEmbeddedKey(key, encodeValue(value));
+  }
+
+  /**
+   * Encodes a value like {@link #encodeValue(Object, Object)}, for comparing it with the stored value of the key, e.g.
+   * as the expected value of a conditional write. It isn't stored, so it doesn't count as serialized.
+   */
+  public ByteBuffer encodeComparedValue(K key, V value) {
+    return withEmbeddedKey(key, valueSerializer.serializeForComparison(value));
+  }
+
+  private ByteBuffer withEmbeddedKey(K key, ByteBuffer encoded) {
+    if (!hashingKeys) return encoded;
+
+    byte[] canonicalKey = canonical(key);
+    ByteBuffer keyAndValue = ByteBuffer.allocate(Integer.BYTES + canonicalKey.length + encoded.remaining());
+    keyAndValue.putInt(canonicalKey.length).put(canonicalKey).put(encoded);
+    return keyAndValue.flip();
+  }
+
+  /**
+   * @return the decoded value, {@code null} if keys are hashed and the value belongs to another key of the same hash
+   */
+  public V decodeValue(K key, ByteBuffer bytes) {
+    if (!hashingKeys) return decodeValue(bytes);
+
+    ByteBuffer embeddedKey = readEmbeddedKey(bytes);
+    if (!embeddedKey.equals(ByteBuffer.wrap(canonical(key)))) {
+      log.warn("{}: hash of key {} collides with another key, reading it as absent", cacheName, key);
+      return null;
+    }
+    return decodeValue(bytes.slice());
+  }
+
+  /**
+   * @return the key in front of a value of hashed keys
+   */
+  public K decodeEmbeddedKey(ByteBuffer bytes) {
+    return Mapper.fromJson(UTF_8.decode(readEmbeddedKey(bytes.duplicate())).toString(), keyType);
+  }
+
+  /**
+   * @return glob-style pattern that matches all keys of this codec's cache
+   */
+  public String keyPattern() {
+    if (hashingKeys) return cacheName + HASH_SEPARATOR + "*";
+    return nonNull(textKey) ? cacheName + SEPARATOR + "*" : "{\"ns\":\""+cacheName+"\",*";
   }
 
   @AllArgsConstructor
@@ -70,26 +192,114 @@ public class JsonObjectCodec<K, C extends KeyOrWildcard<K>, V> implements RedisC
     private K key;
   }
 
-  private static Object decode(ByteBuffer bytes, Class<?> type, Class<?>... subTypes) {
-    return Mapper.fromJson(UTF8.decodeValue(bytes), type, subTypes);
-  }
-
   private static ByteBuffer encode(Object value) {
     return UTF8.encodeValue(Mapper.toJson(value));
   }
 
-  private static Object decodeSimpleKey(String key, Class<?> type) {
-    if (type.equals(UUID.class)) {
-      return UUID.fromString(key);
-    } else if (type.equals(Integer.class)) {
-      return Integer.valueOf(key);
-    } else if (type.equals(Long.class)) {
-      return Long.valueOf(key);
+  private static byte[] canonical(Object key) {
+    return Mapper.toJson(key).getBytes(UTF_8);
+  }
+
+  private static byte[] sha256(byte[] bytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is supported by every Java platform", e);
     }
+  }
+
+  /**
+   * Reads the key in front of a value of hashed keys, leaving the given buffer at the start of the value.
+   */
+  private static ByteBuffer readEmbeddedKey(ByteBuffer bytes) {
+    int length = bytes.getInt();
+    ByteBuffer key = bytes.slice(bytes.position(), length);
+    bytes.position(bytes.position() + length);
     return key;
   }
 
-  private static Predicate<Class<?>> isAnyOf(Class<?>... types) {
-    return type -> Arrays.asList(types).contains(type);
+  /**
+   * @return how to write keys of the given type as text and read them back, {@code null} if they are written as JSON
+   */
+  @SuppressWarnings("unchecked")
+  private static <K> TextKey<K> textKey(Class<K> keyType) {
+    if (SIMPLE_KEY_PARSERS.containsKey(keyType)) {
+      return new TextKey<>(String::valueOf, (Function<String, K>) SIMPLE_KEY_PARSERS.get(keyType));
+    }
+    if (keyType.isEnum()) {
+      return new TextKey<>(key -> ((Enum<?>) key).name(), key -> (K) Enum.valueOf(keyType.asSubclass(Enum.class), key));
+    }
+    if (keyType.isRecord()) {
+      return recordTextKey(keyType);
+    }
+    return null;
+  }
+
+  /**
+   * Records of primitives (other than char) are written as their components separated by colons, which their text
+   * never contains. Records that can't be accessed are written as JSON.
+   */
+  private static <K> TextKey<K> recordTextKey(Class<K> keyType) {
+    RecordComponent[] components = keyType.getRecordComponents();
+    Class<?>[] types = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+    if (types.length == 0 || Arrays.stream(types).anyMatch(type -> !type.isPrimitive() || type.equals(char.class))) {
+      return null;
+    }
+
+    Method[] accessors = Arrays.stream(components).map(RecordComponent::getAccessor).toArray(Method[]::new);
+    Constructor<K> constructor;
+    try {
+      constructor = keyType.getDeclaredConstructor(types);
+      constructor.setAccessible(true);
+      for (Method accessor : accessors) accessor.setAccessible(true);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug("Falling back to JSON for record keys {}", keyType, e);
+      return null;
+    }
+
+    return new TextKey<>(
+      key -> {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < accessors.length; i++) {
+          if (i > 0) text.append(COMPONENT_SEPARATOR);
+          text.append(invoke(accessors[i], key));
+        }
+        return text.toString();
+      },
+      key -> {
+        String[] texts = key.split(COMPONENT_SEPARATOR, -1);
+        Object[] values = new Object[types.length];
+        for (int i = 0; i < types.length; i++) values[i] = parsePrimitive(texts[i], types[i]);
+        try {
+          return constructor.newInstance(values);
+        } catch (ReflectiveOperationException e) {
+          throw new IllegalStateException("Failed to decode key " + key, e);
+        }
+      }
+    );
+  }
+
+  private static Object invoke(Method accessor, Object key) {
+    try {
+      return accessor.invoke(key);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to encode key " + key, e);
+    }
+  }
+
+  private static Object parsePrimitive(String text, Class<?> type) {
+    if (type.equals(int.class)) return Integer.parseInt(text);
+    if (type.equals(long.class)) return Long.parseLong(text);
+    if (type.equals(boolean.class)) return Boolean.parseBoolean(text);
+    if (type.equals(double.class)) return Double.parseDouble(text);
+    if (type.equals(float.class)) return Float.parseFloat(text);
+    if (type.equals(short.class)) return Short.parseShort(text);
+    return Byte.parseByte(text);
+  }
+
+  @AllArgsConstructor
+  private static class TextKey<K> {
+    private final Function<K, String> format;
+    private final Function<String, K> parse;
   }
 }
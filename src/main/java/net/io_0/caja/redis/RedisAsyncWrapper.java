@@ -1,65 +1,158 @@
 package net.io_0.caja.redis;
 
-import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import lombok.NoArgsConstructor;
+import net.io_0.caja.Freshness;
 import net.io_0.caja.async.Cache;
+import net.io_0.caja.configuration.RemoteCacheConfig;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
-import static java.util.Objects.requireNonNull;
+import static io.lettuce.core.ScriptOutputType.INTEGER;
+import static io.lettuce.core.ScriptOutputType.MULTI;
+import static io.lettuce.core.ScriptOutputType.VALUE;
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Collectors.toList;
 import static lombok.AccessLevel.*;
+import static net.io_0.caja.Expiring.checkTtl;
+import static net.io_0.caja.redis.RedisSyncWrapper.*;
 
 @NoArgsConstructor(access = PRIVATE)
 public class RedisAsyncWrapper {
-  public static <K, V> Cache<K, V> wrap(RedisAsyncCommands<KeyOrWildcard<K>, V> cache, Integer ttlInSeconds) {
+  public static <K, V> Cache<K, V> wrap(RemoteConnection connection, JsonObjectCodec<K, KeyOrWildcard<K>, V> codec, RemoteCacheConfig config, Freshness<K> freshness) {
+    RedisClusterAsyncCommands<byte[], byte[]> cache = connection.async();
+    Long ttiInMillis = ttiInMillis(config);
+    long ttlInMillis = config.getTtlInSeconds() * 1000L;
+    String putScript = isNull(ttiInMillis) ? null : putScript(ttiInMillis);
+    String putAllScript = putAllScript(ttlInMillis, ttiInMillis);
+    String putIfAbsentScript = putIfAbsentScript(ttlInMillis, ttiInMillis);
+    String expiringPutIfAbsentScript = expiringPutIfAbsentScript(ttiInMillis);
+    String replaceScript = replaceScript(ttlInMillis, ttiInMillis);
+    String removeScript = removeScript(ttiInMillis);
+    boolean getWithTtl = isNull(ttiInMillis) && freshness.isTracking();
+    String getScript = isNull(ttiInMillis) ? null : getScript(ttiInMillis);
+    String getAllScript = isNull(ttiInMillis) ? null : getAllScript(ttiInMillis);
+    ScanArgs scanArgs = scanArgs(codec.keyPattern(), config);
+
     return new Cache<>() {
       @Override
       public CompletableFuture<V> get(K key) {
-        requireNonNull(key);
-        return cache.get(KeyOrWildcard.key(key)).toCompletableFuture();
+        byte[] encodedKey = encodeKey(codec, key);
+        if (getWithTtl) return getWithTtl(cache, codec, freshness, key, encodedKey);
+        if (isNull(getScript)) return cache.get(encodedKey).toCompletableFuture().thenApply(value -> decodeValue(codec, key, value));
+
+        return cache.<List<Object>>eval(getScript, MULTI, encodedKey).toCompletableFuture()
+          .thenApply(found -> found(codec, freshness, key, found));
+      }
+
+      @Override
+      public CompletableFuture<Map<K, V>> getAll(Collection<K> keys) {
+        if (keys.isEmpty()) return completedFuture(emptyMap());
+        List<K> ordered = List.copyOf(keys);
+        if (isNull(getAllScript)) {
+          return cache.mget(encodeKeys(codec, ordered)).toCompletableFuture().thenApply(values -> withoutAbsent(codec, ordered, values(values)));
+        }
+        return getAllBySlot(cache, getAllScript, encodeKeys(codec, ordered), connection.isCluster())
+          .thenApply(values -> withoutAbsent(codec, ordered, values));
       }
 
       @Override
       public CompletableFuture<Void> put(K key, V value) {
-        requireNonNull(key);
-        return cache.setex(KeyOrWildcard.key(key), ttlInSeconds, value).toCompletableFuture().thenApply(ignore -> null);
+        return put(key, value, ttlInMillis);
       }
 
-      @Override @SuppressWarnings("unchecked")
+      @Override
+      public CompletableFuture<Void> put(K key, V value, Duration ttl) {
+        return put(key, value, checkTtl(ttl).toMillis());
+      }
+
+      private CompletableFuture<Void> put(K key, V value, long ttlInMillis) {
+        RedisFuture<?> put = isNull(putScript)
+          ? cache.psetex(encodeKey(codec, key), ttlInMillis, encodeValue(codec, key, value))
+          : cache.<Long>eval(putScript, INTEGER, new byte[][] { encodeKey(codec, key) }, encodeValue(codec, key, value), millis(ttlInMillis));
+        return put.toCompletableFuture().thenApply(ignore -> null);
+      }
+
+      @Override
+      public CompletableFuture<V> putIfAbsent(K key, V value) {
+        return cache.<byte[]>eval(putIfAbsentScript, VALUE, new byte[][] { encodeKey(codec, key) }, encodeValue(codec, key, value))
+          .toCompletableFuture().thenApply(present -> decodeValue(codec, key, present));
+      }
+
+      @Override
+      public CompletableFuture<V> putIfAbsent(K key, V value, Duration ttl) {
+        byte[] expiry = millis(checkTtl(ttl).toMillis());
+        return cache.<byte[]>eval(expiringPutIfAbsentScript, VALUE, new byte[][] { encodeKey(codec, key) }, encodeValue(codec, key, value), expiry)
+          .toCompletableFuture().thenApply(present -> decodeValue(codec, key, present));
+      }
+
+      @Override
+      public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+        return cache.<Long>eval(replaceScript, INTEGER, new byte[][] { encodeKey(codec, key) }, encodeComparedValue(codec, key, oldValue), encodeValue(codec, key, newValue))
+          .toCompletableFuture().thenApply(replaced -> replaced > 0);
+      }
+
+      @Override
+      public CompletableFuture<Void> putAll(Map<K, V> entries) {
+        if (entries.isEmpty()) return completedFuture(null);
+        List<Map.Entry<K, V>> ordered = List.copyOf(entries.entrySet());
+        return putAllBySlot(cache, putAllScript, encodeKeys(codec, ordered.stream().map(Map.Entry::getKey).collect(toList())),
+          encodeValues(codec, ordered), connection.isCluster()
+        );
+      }
+
+      @Override
       public CompletableFuture<Boolean> containsKey(K key) {
-        requireNonNull(key);
-        return cache.exists(KeyOrWildcard.key(key)).toCompletableFuture().thenApply(keyCount -> keyCount > 0);
+        return cache.exists(encodeKey(codec, key)).toCompletableFuture().thenApply(keyCount -> keyCount > 0);
       }
 
       @Override
       public CompletableFuture<List<K>> keys() {
-        return fetchKeys().thenApply(containers -> containers.stream()
-          .map(KeyOrWildcard::getKey)
-          .collect(toList())
-        );
+        List<K> keys = new ArrayList<>();
+        return streamKeys(keys::add).thenApply(ignore -> keys);
       }
 
-      private CompletableFuture<List<KeyOrWildcard<K>>> fetchKeys() {
-        return cache.keysLegacy(KeyOrWildcard.wildcard()).toCompletableFuture();
+      @Override
+      public CompletableFuture<Void> streamKeys(Consumer<K> consumer) {
+        return scanNodes(connection, scanArgs, (node, keys) -> decodeKeys(cache, codec, keys, nonNull(ttiInMillis)).thenAccept(decoded -> {
+          // pages of several nodes may arrive at once, the consumer gets one page after the other
+          synchronized (consumer) {
+            decoded.forEach(consumer);
+          }
+        }));
       }
 
-      @Override @SuppressWarnings("unchecked")
+      @Override
       public CompletableFuture<Void> remove(K key) {
-        requireNonNull(key);
-        return cache.del(KeyOrWildcard.key(key)).toCompletableFuture().thenApply(ignore -> null);
+        return cache.del(encodeKey(codec, key)).toCompletableFuture().thenApply(ignore -> null);
+      }
+
+      @Override
+      public CompletableFuture<Boolean> remove(K key, V value) {
+        return cache.<Long>eval(removeScript, INTEGER, new byte[][] { encodeKey(codec, key) }, encodeComparedValue(codec, key, value))
+          .toCompletableFuture().thenApply(removed -> removed > 0);
+      }
+
+      @Override
+      public CompletableFuture<Void> removeAll(Collection<K> keys) {
+        if (keys.isEmpty()) return completedFuture(null);
+        return cache.del(encodeKeys(codec, keys)).toCompletableFuture().thenApply(ignore -> null);
       }
 
-      @SuppressWarnings("unchecked")
       @Override
       public CompletableFuture<Void> clear() {
-        return fetchKeys().thenCompose(keys -> CompletableFuture.allOf(
-          keys.stream()
-            .map(cache::del)
-            .map(CompletionStage::toCompletableFuture)
-            .toArray(CompletableFuture[]::new)
-        ));
+        return scanNodes(connection, scanArgs, (node, keys) -> unlink(node, keys, connection.isCluster()));
       }
     };
   }
@@ -0,0 +1,83 @@
+package net.io_0.caja.redis;
+
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import net.io_0.caja.LoadLock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static io.lettuce.core.ScriptOutputType.INTEGER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static net.io_0.caja.redis.RedisSyncWrapper.REMOVE_SCRIPT;
+import static net.io_0.caja.redis.RedisSyncWrapper.encodeKey;
+
+/**
+ * Load lock of one remote cache. A lock is a Redis key set with {@code SET NX PX}, it expires after its lease, so
+ * a node dying while loading blocks the key no longer than that. Waiting nodes poll the cache for the value, each poll
+ * runs on a virtual thread of its own, as lookups of sync caches block, so they never tie up the common pool.
+ *
+ * @param <K> the key type for the cache
+ */
+@Slf4j
+public class RedisLoadLock<K> implements LoadLock<K> {
+  private static final byte[] PREFIX = "caja/locks/".getBytes(UTF_8);
+
+  private final RedisClusterAsyncCommands<byte[], byte[]> commands;
+  private final JsonObjectCodec<K, KeyOrWildcard<K>, ?> codec;
+  private final Duration lease;
+  private final Executor pollDelay;
+
+  public RedisLoadLock(RedisClusterAsyncCommands<byte[], byte[]> commands, JsonObjectCodec<K, KeyOrWildcard<K>, ?> codec, Duration lease, Duration pollInterval) {
+    this.commands = commands;
+    this.codec = codec;
+    this.lease = lease;
+    this.pollDelay = delayedExecutor(pollInterval.toMillis(), MILLISECONDS, task -> Thread.ofVirtual().name("caja-load-lock").start(task));
+  }
+
+  @Override
+  public CompletableFuture<Lease> acquire(K key) {
+    byte[] lockKey = lockKey(key);
+    byte[] token = UUID.randomUUID().toString().getBytes(UTF_8);
+    return commands.set(lockKey, token, SetArgs.Builder.nx().px(lease.toMillis())).toCompletableFuture()
+      .thenApply(acquired -> nonNull(acquired) ? lease(lockKey, token) : null);
+  }
+
+  @Override
+  public <V> CompletableFuture<V> awaitValue(Supplier<CompletableFuture<V>> lookup) {
+    return poll(lookup, System.nanoTime() + lease.toNanos());
+  }
+
+  private <V> CompletableFuture<V> poll(Supplier<CompletableFuture<V>> lookup, long deadline) {
+    return supplyAsync(() -> null, pollDelay).thenCompose(ignore -> lookup.get()).thenCompose(value ->
+      nonNull(value) || System.nanoTime() >= deadline ? completedFuture(value) : poll(lookup, deadline)
+    );
+  }
+
+  /**
+   * Releasing deletes the lock only if it is still the one of the lease, it may have expired and been taken by
+   * another node meanwhile.
+   */
+  private Lease lease(byte[] lockKey, byte[] token) {
+    return () -> commands.<Long>eval(REMOVE_SCRIPT, INTEGER, new byte[][] { lockKey }, token).toCompletableFuture()
+      .whenComplete((released, error) -> {
+        if (nonNull(error)) log.debug("Releasing {} failed, it expires after its lease", new String(lockKey, UTF_8), error);
+      });
+  }
+
+  private byte[] lockKey(K key) {
+    byte[] encodedKey = encodeKey(codec, key);
+    byte[] lockKey = new byte[PREFIX.length + encodedKey.length];
+    System.arraycopy(PREFIX, 0, lockKey, 0, PREFIX.length);
+    System.arraycopy(encodedKey, 0, lockKey, PREFIX.length, encodedKey.length);
+    return lockKey;
+  }
+}
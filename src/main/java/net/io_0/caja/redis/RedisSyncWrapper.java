@@ -1,56 +1,485 @@
 package net.io_0.caja.redis;
 
-import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScanIterator;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
 import lombok.NoArgsConstructor;
+import net.io_0.caja.Freshness;
+import net.io_0.caja.configuration.RemoteCacheConfig;
 import net.io_0.caja.sync.Cache;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import static io.lettuce.core.ScriptOutputType.INTEGER;
+import static io.lettuce.core.ScriptOutputType.MULTI;
+import static io.lettuce.core.ScriptOutputType.VALUE;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.*;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Collectors.*;
 import static lombok.AccessLevel.PRIVATE;
+import static net.io_0.caja.AsyncUtils.join;
+import static net.io_0.caja.Expiring.checkTtl;
 
+/**
+ * Works on a connection that is shared by all caches of a host and carries raw bytes only, the keys and values
+ * of the cache are encoded and decoded here with the codec of the cache. Bulk scripts are sent through the async
+ * commands of the connection, one per hash slot in a cluster, so they are pipelined.
+ * <p>
+ * With a time to idle, values are stored stamped with their deadline, the time in epoch millis (of Redis) their time
+ * to live ends, followed by a colon. Reads postpone expiry by the time to idle, but never past the deadline. Scripts
+ * stamp and unstamp values, the stamp never reaches the codec.
+ */
 @NoArgsConstructor(access = PRIVATE)
 public class RedisSyncWrapper {
-  public static <K, V> Cache<K, V> wrap(RedisCommands<KeyOrWildcard<K>, V> cache, Integer ttlInSeconds) {
+  /**
+   * Lua script that deletes the given key, if it is mapped to the given value. It answers with 1 if the key was
+   * deleted, 0 otherwise.
+   */
+  static final String REMOVE_SCRIPT = "if redis.call('GET', KEYS[1]) == ARGV[1] then redis.call('DEL', KEYS[1]) return 1 end return 0";
+
+  /**
+   * Lua snippet that sets {@code now} to the current time of Redis in epoch millis.
+   */
+  private static final String NOW = "local time = redis.call('TIME') local now = time[1] * 1000 + math.floor(time[2] / 1000) ";
+
+  /**
+   * Lua snippet that defines {@code unstamp}, which splits a stamped value into its deadline and the value.
+   */
+  private static final String UNSTAMP = "local function unstamp(stamped) local separator = string.find(stamped, ':', 1, true) "
+    + "return tonumber(string.sub(stamped, 1, separator - 1)), string.sub(stamped, separator + 1) end ";
+
+  public static <K, V> Cache<K, V> wrap(RemoteConnection connection, JsonObjectCodec<K, KeyOrWildcard<K>, V> codec, RemoteCacheConfig config, Freshness<K> freshness) {
+    RedisClusterCommands<byte[], byte[]> cache = connection.sync();
+    RedisClusterAsyncCommands<byte[], byte[]> pipeline = connection.async();
+    Long ttiInMillis = ttiInMillis(config);
+    long ttlInMillis = config.getTtlInSeconds() * 1000L;
+    String putScript = isNull(ttiInMillis) ? null : putScript(ttiInMillis);
+    String putAllScript = putAllScript(ttlInMillis, ttiInMillis);
+    String putIfAbsentScript = putIfAbsentScript(ttlInMillis, ttiInMillis);
+    String expiringPutIfAbsentScript = expiringPutIfAbsentScript(ttiInMillis);
+    String replaceScript = replaceScript(ttlInMillis, ttiInMillis);
+    String removeScript = removeScript(ttiInMillis);
+    boolean getWithTtl = isNull(ttiInMillis) && freshness.isTracking();
+    String getScript = isNull(ttiInMillis) ? null : getScript(ttiInMillis);
+    String getAllScript = isNull(ttiInMillis) ? null : getAllScript(ttiInMillis);
+    ScanArgs scanArgs = scanArgs(codec.keyPattern(), config);
+
     return new Cache<>() {
       @Override
       public V get(K key) {
-        requireNonNull(key);
-        return cache.get(KeyOrWildcard.key(key));
+        byte[] encodedKey = encodeKey(codec, key);
+        if (getWithTtl) return join(getWithTtl(pipeline, codec, freshness, key, encodedKey));
+        if (isNull(getScript)) return decodeValue(codec, key, cache.get(encodedKey));
+
+        List<Object> found = cache.eval(getScript, MULTI, encodedKey);
+        return found(codec, freshness, key, found);
+      }
+
+      @Override
+      public Map<K, V> getAll(Collection<K> keys) {
+        if (keys.isEmpty()) return emptyMap();
+        List<K> ordered = List.copyOf(keys);
+        return isNull(getAllScript)
+          ? withoutAbsent(codec, ordered, values(cache.mget(encodeKeys(codec, ordered))))
+          : withoutAbsent(codec, ordered, join(getAllBySlot(pipeline, getAllScript, encodeKeys(codec, ordered), connection.isCluster())));
       }
 
       @Override
       public void put(K key, V value) {
-        requireNonNull(key);
-        cache.setex(KeyOrWildcard.key(key), ttlInSeconds, value);
+        put(key, value, ttlInMillis);
+      }
+
+      @Override
+      public void put(K key, V value, Duration ttl) {
+        put(key, value, checkTtl(ttl).toMillis());
+      }
+
+      private void put(K key, V value, long ttlInMillis) {
+        if (isNull(putScript)) cache.psetex(encodeKey(codec, key), ttlInMillis, encodeValue(codec, key, value));
+        else cache.<Long>eval(putScript, INTEGER, new byte[][] { encodeKey(codec, key) }, encodeValue(codec, key, value), millis(ttlInMillis));
       }
 
-      @Override @SuppressWarnings("unchecked")
+      @Override
+      public V putIfAbsent(K key, V value) {
+        return decodeValue(codec, key, cache.<byte[]>eval(putIfAbsentScript, VALUE, new byte[][] { encodeKey(codec, key) }, encodeValue(codec, key, value)));
+      }
+
+      @Override
+      public V putIfAbsent(K key, V value, Duration ttl) {
+        byte[] expiry = millis(checkTtl(ttl).toMillis());
+        return decodeValue(codec, key, cache.<byte[]>eval(expiringPutIfAbsentScript, VALUE, new byte[][] { encodeKey(codec, key) }, encodeValue(codec, key, value), expiry));
+      }
+
+      @Override
+      public boolean replace(K key, V oldValue, V newValue) {
+        return cache.<Long>eval(replaceScript, INTEGER, new byte[][] { encodeKey(codec, key) }, encodeComparedValue(codec, key, oldValue), encodeValue(codec, key, newValue)) > 0;
+      }
+
+      @Override
+      public void putAll(Map<K, V> entries) {
+        if (entries.isEmpty()) return;
+        List<Map.Entry<K, V>> ordered = List.copyOf(entries.entrySet());
+        join(putAllBySlot(pipeline, putAllScript, encodeKeys(codec, ordered.stream().map(Map.Entry::getKey).collect(toList())),
+          encodeValues(codec, ordered), connection.isCluster()));
+      }
+
+      @Override
       public boolean containsKey(K key) {
-        requireNonNull(key);
-        return cache.exists(KeyOrWildcard.key(key)) > 0;
+        return cache.exists(encodeKey(codec, key)) > 0;
       }
 
       @Override
       public List<K> keys() {
-        return fetchKeys().stream().map(KeyOrWildcard::getKey).collect(toList());
+        // the nodes of a cluster are scanned at once
+        Queue<K> keys = new ConcurrentLinkedQueue<>();
+        join(scanNodes(connection, scanArgs, (node, page) -> decodeKeys(pipeline, codec, page, nonNull(ttiInMillis)).thenAccept(keys::addAll)));
+        return new ArrayList<>(keys);
       }
 
-      private List<KeyOrWildcard<K>> fetchKeys() {
-        return cache.keysLegacy(KeyOrWildcard.wildcard());
+      @Override
+      public Stream<K> streamKeys() {
+        return connection.syncNodes().stream()
+          .flatMap(node -> pages(ScanIterator.scan(node, scanArgs), config.getScanCount()))
+          .flatMap(page -> join(decodeKeys(pipeline, codec, page, nonNull(ttiInMillis))).stream());
       }
 
-      @Override @SuppressWarnings("unchecked")
+      @Override
       public void remove(K key) {
-        requireNonNull(key);
-        cache.del(KeyOrWildcard.key(key));
+        cache.del(encodeKey(codec, key));
+      }
+
+      @Override
+      public boolean remove(K key, V value) {
+        return cache.<Long>eval(removeScript, INTEGER, new byte[][] { encodeKey(codec, key) }, encodeComparedValue(codec, key, value)) > 0;
+      }
+
+      @Override
+      public void removeAll(Collection<K> keys) {
+        if (keys.isEmpty()) return;
+        cache.del(encodeKeys(codec, keys));
       }
 
-      @SuppressWarnings("unchecked")
       @Override
       public void clear() {
-        fetchKeys().forEach(cache::del);
+        // the nodes of a cluster are scanned at once
+        join(scanNodes(connection, scanArgs, (node, page) -> unlink(node, page, connection.isCluster())));
       }
     };
   }
+
+  /**
+   * Lua script that sets the given key to the given value, stamped with the deadline of the given time to live (in
+   * millis), expiring after the given time to idle or the time to live, whichever is shorter.
+   */
+  static String putScript(long ttiInMillis) {
+    return NOW + "redis.call('SET', KEYS[1], " + stamp("ARGV[1]", "ARGV[2]") + ", 'PX', math.min(" + ttiInMillis + ", ARGV[2])) return 1";
+  }
+
+  /**
+   * Lua script that sets all given keys to the given values (same order) with the given time to live, in one round trip.
+   * With a time to idle, the values are stamped.
+   */
+  static String putAllScript(long ttlInMillis, Long ttiInMillis) {
+    if (isNull(ttiInMillis)) return "for i, key in ipairs(KEYS) do redis.call('PSETEX', key, " + ttlInMillis + ", ARGV[i]) end return #KEYS";
+    return NOW + "for i, key in ipairs(KEYS) do redis.call('SET', key, " + stamp("ARGV[i]", ttlInMillis) + ", 'PX', "
+      + Math.min(ttlInMillis, ttiInMillis) + ") end return #KEYS";
+  }
+
+  /**
+   * Lua script that sets the given key to the given value with the given time to live, unless the key is present. It
+   * answers with the present value, false if the key was set, in one round trip. With a time to idle, the value is
+   * stamped.
+   */
+  static String putIfAbsentScript(long ttlInMillis, Long ttiInMillis) {
+    if (isNull(ttiInMillis)) return "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', " + ttlInMillis + ") then return false end return redis.call('GET', KEYS[1])";
+    return UNSTAMP + NOW + "if redis.call('SET', KEYS[1], " + stamp("ARGV[1]", ttlInMillis) + ", 'NX', 'PX', " + Math.min(ttlInMillis, ttiInMillis) + ") "
+      + "then return false end local present = redis.call('GET', KEYS[1]) if not present then return false end return select(2, unstamp(present))";
+  }
+
+  /**
+   * Lua script that sets the given key to the given value with the time to live given second (in millis), unless the
+   * key is present, see {@link #putIfAbsentScript}.
+   */
+  static String expiringPutIfAbsentScript(Long ttiInMillis) {
+    if (isNull(ttiInMillis)) return "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return false end return redis.call('GET', KEYS[1])";
+    return UNSTAMP + NOW + "if redis.call('SET', KEYS[1], " + stamp("ARGV[1]", "ARGV[2]") + ", 'NX', 'PX', math.min(" + ttiInMillis + ", ARGV[2])) "
+      + "then return false end local present = redis.call('GET', KEYS[1]) if not present then return false end return select(2, unstamp(present))";
+  }
+
+  /**
+   * Lua script that sets the given key to the second given value with the given time to live, if it is mapped to the
+   * first given value. It answers with 1 if the key was set, 0 otherwise. With a time to idle, the value is stamped.
+   */
+  static String replaceScript(long ttlInMillis, Long ttiInMillis) {
+    if (isNull(ttiInMillis)) return "if redis.call('GET', KEYS[1]) == ARGV[1] then redis.call('PSETEX', KEYS[1], " + ttlInMillis + ", ARGV[2]) return 1 end return 0";
+    return UNSTAMP + NOW + "local present = redis.call('GET', KEYS[1]) if present and select(2, unstamp(present)) == ARGV[1] then "
+      + "redis.call('SET', KEYS[1], " + stamp("ARGV[2]", ttlInMillis) + ", 'PX', " + Math.min(ttlInMillis, ttiInMillis) + ") return 1 end return 0";
+  }
+
+  /**
+   * Lua script that deletes the given key, if it is mapped to the given value, see {@link #REMOVE_SCRIPT}. With a
+   * time to idle, the value is unstamped before it is compared.
+   */
+  static String removeScript(Long ttiInMillis) {
+    if (isNull(ttiInMillis)) return REMOVE_SCRIPT;
+    return UNSTAMP + "local present = redis.call('GET', KEYS[1]) if present and select(2, unstamp(present)) == ARGV[1] then "
+      + "redis.call('DEL', KEYS[1]) return 1 end return 0";
+  }
+
+  /**
+   * Lua script that gets the stamped value of the given key and postpones its expiry by the given time to idle, up to
+   * its deadline. It answers with the value and the millis left until its deadline, nothing if absent.
+   */
+  static String getScript(long ttiInMillis) {
+    return UNSTAMP + NOW + "local present = redis.call('GET', KEYS[1]) if not present then return {} end "
+      + "local deadline, value = unstamp(present) local remaining = deadline - now "
+      + "if remaining <= 0 then redis.call('DEL', KEYS[1]) return {} end "
+      + "redis.call('PEXPIRE', KEYS[1], math.min(" + ttiInMillis + ", remaining)) return {value, remaining}";
+  }
+
+  /**
+   * Lua script that gets the stamped values of all given keys (same order, false if absent) and postpones their
+   * expiry by the given time to idle, up to their deadline, in one round trip.
+   */
+  static String getAllScript(long ttiInMillis) {
+    return UNSTAMP + NOW + "local values = {} for i, key in ipairs(KEYS) do values[i] = false local present = redis.call('GET', key) "
+      + "if present then local deadline, value = unstamp(present) local remaining = deadline - now "
+      + "if remaining > 0 then redis.call('PEXPIRE', key, math.min(" + ttiInMillis + ", remaining)) values[i] = value end end end return values";
+  }
+
+  /**
+   * @return Lua expression of the given value stamped with the deadline of the given time to live, needs {@link #NOW}
+   */
+  private static String stamp(String value, Object ttlInMillis) {
+    return "string.format('%.0f', now + " + ttlInMillis + ") .. ':' .. " + value;
+  }
+
+  /**
+   * @return the value of a stamped value, as it is read without script
+   */
+  static byte[] unstamp(byte[] stamped) {
+    for (int i = 0; i < stamped.length; i++) {
+      if (stamped[i] == ':') return Arrays.copyOfRange(stamped, i + 1, stamped.length);
+    }
+    return stamped;
+  }
+
+  static byte[] millis(long millis) {
+    return Long.toString(millis).getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Runs the put all script for the given keys and values (same order), once per hash slot in a cluster, as a script
+   * may only touch keys of one slot there. All runs are sent at once.
+   */
+  static CompletableFuture<Void> putAllBySlot(RedisClusterAsyncCommands<byte[], byte[]> commands, String putAllScript, byte[][] keys, byte[][] values, boolean cluster) {
+    return allOf(slotGroups(keys, cluster).stream()
+      .map(group -> commands.<Long>eval(putAllScript, INTEGER, pick(keys, group), pick(values, group)).toCompletableFuture())
+      .toArray(CompletableFuture[]::new)
+    );
+  }
+
+  /**
+   * Runs the get all script for the given keys, once per hash slot in a cluster, as a script may only touch keys of
+   * one slot there. All runs are sent at once.
+   *
+   * @return the values of the keys (same order), {@code null} if absent
+   */
+  static CompletableFuture<List<Object>> getAllBySlot(RedisClusterAsyncCommands<byte[], byte[]> commands, String getAllScript, byte[][] keys, boolean cluster) {
+    Object[] values = new Object[keys.length];
+    return allOf(slotGroups(keys, cluster).stream()
+      .map(group -> commands.<List<Object>>eval(getAllScript, MULTI, pick(keys, group)).toCompletableFuture()
+        .thenAccept(groupValues -> {
+          for (int i = 0; i < group.size(); i++) values[group.get(i)] = groupValues.get(i);
+        })
+      )
+      .toArray(CompletableFuture[]::new)
+    ).thenApply(ignore -> Arrays.asList(values));
+  }
+
+  /**
+   * Scans all nodes holding keys at once, the masters of a cluster or the one Redis otherwise. Each node hands page
+   * after page of matching keys to the given page handler, fetching the next page once the handler completed.
+   */
+  static CompletableFuture<Void> scanNodes(RemoteConnection connection, ScanArgs scanArgs, BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, List<byte[]>, CompletableFuture<?>> pageHandler) {
+    return allOf(connection.asyncNodes().stream()
+      .map(node -> scan(node, ScanCursor.INITIAL, scanArgs, pageHandler))
+      .toArray(CompletableFuture[]::new)
+    );
+  }
+
+  private static CompletableFuture<Void> scan(RedisClusterAsyncCommands<byte[], byte[]> node, ScanCursor cursor, ScanArgs scanArgs, BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, List<byte[]>, CompletableFuture<?>> pageHandler) {
+    return node.scan(cursor, scanArgs).toCompletableFuture().thenCompose(page -> pageHandler.apply(node, page.getKeys())
+      .thenCompose(ignore -> page.isFinished() ? completedFuture(null) : scan(node, page, scanArgs, pageHandler))
+    );
+  }
+
+  /**
+   * Unlinks the given keys on the node they were scanned on, once per hash slot in a cluster, as a command may only
+   * touch keys of one slot there.
+   */
+  static CompletableFuture<Void> unlink(RedisClusterAsyncCommands<byte[], byte[]> node, List<byte[]> keys, boolean cluster) {
+    if (keys.isEmpty()) return completedFuture(null);
+    byte[][] all = keys.toArray(byte[][]::new);
+    return allOf(slotGroups(all, cluster).stream()
+      .map(group -> node.unlink(pick(all, group)).toCompletableFuture())
+      .toArray(CompletableFuture[]::new)
+    );
+  }
+
+  /**
+   * @return positions of the given keys grouped by hash slot in a cluster, all positions in one group otherwise
+   */
+  static Collection<List<Integer>> slotGroups(byte[][] keys, boolean cluster) {
+    IntStream positions = IntStream.range(0, keys.length);
+    if (!cluster) return List.of(positions.boxed().collect(toList()));
+    return positions.boxed().collect(groupingBy(i -> SlotHash.getSlot(keys[i]))).values();
+  }
+
+  private static byte[][] pick(byte[][] all, List<Integer> positions) {
+    return positions.stream().map(i -> all[i]).toArray(byte[][]::new);
+  }
+
+  static Long ttiInMillis(RemoteCacheConfig config) {
+    return isNull(config.getTtiInSeconds()) ? null : config.getTtiInSeconds() * 1000L;
+  }
+
+  static List<byte[]> values(List<KeyValue<byte[], byte[]>> keyValues) {
+    return keyValues.stream().map(keyValue -> keyValue.getValueOrElse(null)).collect(toList());
+  }
+
+  /**
+   * Incrementally matches the keys of a cache, fetching about {@code scanCount} keys per round trip.
+   */
+  static ScanArgs scanArgs(String keyPattern, RemoteCacheConfig config) {
+    return ScanArgs.Builder.matches(keyPattern).limit(config.getScanCount());
+  }
+
+  static <K> byte[] encodeKey(JsonObjectCodec<K, KeyOrWildcard<K>, ?> codec, K key) {
+    return toBytes(codec.encodeKey(KeyOrWildcard.key(key)));
+  }
+
+  static <K> byte[][] encodeKeys(JsonObjectCodec<K, KeyOrWildcard<K>, ?> codec, Collection<K> keys) {
+    return keys.stream().map(key -> encodeKey(codec, key)).toArray(byte[][]::new);
+  }
+
+  static <K> K decodeKey(JsonObjectCodec<K, KeyOrWildcard<K>, ?> codec, byte[] key) {
+    return codec.decodeKey(ByteBuffer.wrap(key)).getKey();
+  }
+
+  /**
+   * Values are encoded with their key, as hashed keys are embedded in their values.
+   */
+  static <K, V> byte[] encodeValue(JsonObjectCodec<K, ?, V> codec, K key, V value) {
+    return toBytes(codec.encodeValue(key, value));
+  }
+
+  static <K, V> byte[] encodeComparedValue(JsonObjectCodec<K, ?, V> codec, K key, V value) {
+    return toBytes(codec.encodeComparedValue(key, value));
+  }
+
+  static <K, V> byte[][] encodeValues(JsonObjectCodec<K, ?, V> codec, List<Map.Entry<K, V>> entries) {
+    return entries.stream().map(entry -> encodeValue(codec, entry.getKey(), entry.getValue())).toArray(byte[][]::new);
+  }
+
+  static <K, V> V decodeValue(JsonObjectCodec<K, ?, V> codec, K key, byte[] value) {
+    return isNull(value) ? null : codec.decodeValue(key, ByteBuffer.wrap(value));
+  }
+
+  /**
+   * Gets the value of the given key and reports the millis it has left to live to the freshness tracking. GET and PTTL
+   * are pipelined instead of scripted, so they can be read from replicas. If the key expires in between, its age
+   * stays unknown.
+   */
+  static <K, V> CompletableFuture<V> getWithTtl(RedisClusterAsyncCommands<byte[], byte[]> commands, JsonObjectCodec<K, ?, V> codec, Freshness<K> freshness, K key, byte[] encodedKey) {
+    CompletableFuture<byte[]> value = commands.get(encodedKey).toCompletableFuture();
+    CompletableFuture<Long> remaining = commands.pttl(encodedKey).toCompletableFuture();
+    return value.thenCombine(remaining, (found, millis) -> {
+      if (isNull(found)) return null;
+      if (millis >= 0) freshness.observed(key, millis);
+      return decodeValue(codec, key, found);
+    });
+  }
+
+  /**
+   * Decodes the answer of a get script, an empty list if absent, the value and the millis it has left otherwise, and
+   * reports the latter to the freshness tracking.
+   */
+  static <K, V> V found(JsonObjectCodec<K, ?, V> codec, Freshness<K> freshness, K key, List<Object> found) {
+    if (found.isEmpty()) return null;
+    freshness.observed(key, (Long) found.get(1));
+    return decodeValue(codec, key, (byte[]) found.get(0));
+  }
+
+  /**
+   * Decodes a page of scanned keys. Hashed keys can't be decoded, their values are fetched (all at once) for the keys
+   * embedded in them, keys expired meanwhile are left out.
+   *
+   * @param stamped whether values are stamped with their deadline
+   */
+  static <K> CompletableFuture<List<K>> decodeKeys(RedisClusterAsyncCommands<byte[], byte[]> commands, JsonObjectCodec<K, KeyOrWildcard<K>, ?> codec, List<byte[]> keys, boolean stamped) {
+    if (!codec.isHashingKeys()) {
+      return completedFuture(keys.stream().map(key -> decodeKey(codec, key)).collect(toList()));
+    }
+
+    List<CompletableFuture<byte[]>> values = keys.stream().map(key -> commands.get(key).toCompletableFuture()).collect(toList());
+    return allOf(values.toArray(CompletableFuture[]::new)).thenApply(ignore -> values.stream()
+      .map(CompletableFuture::join)
+      .filter(Objects::nonNull)
+      .map(value -> codec.decodeEmbeddedKey(ByteBuffer.wrap(stamped ? unstamp(value) : value)))
+      .collect(toList())
+    );
+  }
+
+  /**
+   * @return the scanned keys in pages of up to the given size
+   */
+  static Stream<List<byte[]>> pages(ScanIterator<byte[]> keys, int pageSize) {
+    return Stream.generate(() -> {
+      List<byte[]> page = new ArrayList<>();
+      while (keys.hasNext() && page.size() < pageSize) page.add(keys.next());
+      return page;
+    }).takeWhile(page -> !page.isEmpty());
+  }
+
+  /**
+   * Bulk reads answer in the order of the requested keys, so the keys need no decoding.
+   */
+  static <K, V> Map<K, V> withoutAbsent(JsonObjectCodec<K, KeyOrWildcard<K>, V> codec, List<K> keys, List<?> values) {
+    Map<K, V> present = new HashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      V value = decodeValue(codec, keys.get(i), (byte[]) values.get(i));
+      if (nonNull(value)) present.put(keys.get(i), value);
+    }
+    return present;
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+      return buffer.array();
+    }
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
 }
@@ -0,0 +1,75 @@
+package net.io_0.caja.redis;
+
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The connection shared by all caches of a host, either to a standalone Redis (with replicas or sentinels) or to
+ * a Redis Cluster. A cluster connection routes each command to the node serving the hash slot of its keys, only
+ * scans have to visit every master on their own.
+ */
+public class RemoteConnection {
+  private final StatefulRedisConnection<byte[], byte[]> standalone;
+  private final StatefulRedisClusterConnection<byte[], byte[]> cluster;
+
+  private RemoteConnection(StatefulRedisConnection<byte[], byte[]> standalone, StatefulRedisClusterConnection<byte[], byte[]> cluster) {
+    this.standalone = standalone;
+    this.cluster = cluster;
+  }
+
+  public static RemoteConnection of(StatefulRedisConnection<byte[], byte[]> standalone) {
+    return new RemoteConnection(standalone, null);
+  }
+
+  public static RemoteConnection of(StatefulRedisClusterConnection<byte[], byte[]> cluster) {
+    return new RemoteConnection(null, cluster);
+  }
+
+  public boolean isCluster() {
+    return nonNull(cluster);
+  }
+
+  public RedisClusterCommands<byte[], byte[]> sync() {
+    return isCluster() ? cluster.sync() : standalone.sync();
+  }
+
+  public RedisClusterAsyncCommands<byte[], byte[]> async() {
+    return isCluster() ? cluster.async() : standalone.async();
+  }
+
+  /**
+   * @return commands of every node holding keys, the masters of a cluster as currently known
+   */
+  public List<RedisClusterCommands<byte[], byte[]>> syncNodes() {
+    if (!isCluster()) return List.of(standalone.sync());
+    return masters().stream().map(node -> cluster.getConnection(node.getNodeId()).sync()).collect(toList());
+  }
+
+  /**
+   * @return commands of every node holding keys, the masters of a cluster as currently known
+   */
+  public List<RedisClusterAsyncCommands<byte[], byte[]>> asyncNodes() {
+    if (!isCluster()) return List.of(standalone.async());
+    return masters().stream().map(node -> cluster.getConnection(node.getNodeId()).async()).collect(toList());
+  }
+
+  public void close() {
+    StatefulConnection<byte[], byte[]> connection = isCluster() ? cluster : standalone;
+    connection.close();
+  }
+
+  private List<RedisClusterNode> masters() {
+    return StreamSupport.stream(cluster.getPartitions().spliterator(), false)
+      .filter(node -> node.is(RedisClusterNode.NodeFlag.UPSTREAM))
+      .collect(toList());
+  }
+}
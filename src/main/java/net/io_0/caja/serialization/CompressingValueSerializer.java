@@ -0,0 +1,124 @@
+package net.io_0.caja.serialization;
+
+import lombok.ToString;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Deflates serialized values of at least the given size. Compressed values start with a header byte which isn't valid
+ * UTF-8, a format byte and the uncompressed size, so compressed and uncompressed values can be read side by side,
+ * regardless of the threshold. Kryo may write the header byte too, e.g. as the first byte of a class ID, so uncompressed
+ * values starting with it are escaped by the header and an uncompressed format byte. Other values are stored as is.
+ */
+@ToString
+public class CompressingValueSerializer implements ValueSerializer {
+  static final byte HEADER = (byte) 0xFF;
+  static final byte UNCOMPRESSED = 0;
+  static final byte COMPRESSED = 1;
+  private static final int HEADER_SIZE = 2 + Integer.BYTES;
+
+  private final ValueSerializer serializer;
+  private final Integer thresholdInBytes;
+  @ToString.Exclude
+  private final CompressionStatistics statistics;
+
+  /**
+   * @param serializer serializes the values before compression
+   * @param thresholdInBytes minimum size of serialized values to compress, {@code null} to never compress
+   * @param statistics records the sizes of all serialized values that are stored
+   */
+  public CompressingValueSerializer(ValueSerializer serializer, Integer thresholdInBytes, CompressionStatistics statistics) {
+    this.serializer = serializer;
+    this.thresholdInBytes = thresholdInBytes;
+    this.statistics = statistics;
+  }
+
+  @Override
+  public ByteBuffer serialize(Object value) {
+    ByteBuffer serialized = serializer.serialize(value);
+    ByteBuffer stored = store(serialized);
+    statistics.record(serialized.remaining(), stored.remaining(), format(stored) == COMPRESSED);
+    return stored;
+  }
+
+  /**
+   * Compresses like {@link #serialize}, but leaves the statistics alone, as the value isn't stored.
+   */
+  @Override
+  public ByteBuffer serializeForComparison(Object value) {
+    return store(serializer.serializeForComparison(value));
+  }
+
+  @Override
+  public Object deserialize(ByteBuffer bytes, Class<?> type, Class<?>... subTypes) {
+    ByteBuffer serialized = switch (format(bytes)) {
+      case COMPRESSED -> decompress(bytes);
+      case UNCOMPRESSED -> bytes.duplicate().position(bytes.position() + 2);
+      case HEADER -> bytes;
+      default -> throw new IllegalStateException("Stored value has an unknown format " + format(bytes));
+    };
+    return serializer.deserialize(serialized, type, subTypes);
+  }
+
+  /**
+   * @return the format byte following the header, or the header itself if the value is stored as is
+   */
+  private static byte format(ByteBuffer stored) {
+    boolean marked = stored.remaining() > 1 && stored.get(stored.position()) == HEADER;
+    return marked ? stored.get(stored.position() + 1) : HEADER;
+  }
+
+  private ByteBuffer store(ByteBuffer serialized) {
+    ByteBuffer stored = nonNull(thresholdInBytes) && serialized.remaining() >= thresholdInBytes ? compress(serialized) : serialized;
+    return stored == serialized && serialized.hasRemaining() && serialized.get(serialized.position()) == HEADER ? escape(serialized) : stored;
+  }
+
+  private static ByteBuffer escape(ByteBuffer serialized) {
+    return ByteBuffer.allocate(2 + serialized.remaining()).put(HEADER).put(UNCOMPRESSED).put(serialized.duplicate()).flip();
+  }
+
+  /**
+   * @return the compressed value, or the given value if compressing doesn't make it smaller
+   */
+  private static ByteBuffer compress(ByteBuffer serialized) {
+    int size = serialized.remaining();
+    if (size <= HEADER_SIZE) return serialized;
+    ByteBuffer compressed = ByteBuffer.allocate(size).put(HEADER).put(COMPRESSED).putInt(size);
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(serialized.duplicate());
+      deflater.finish();
+      while (!deflater.finished() && compressed.hasRemaining()) {
+        deflater.deflate(compressed);
+      }
+      return deflater.finished() ? compressed.flip() : serialized;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static ByteBuffer decompress(ByteBuffer stored) {
+    ByteBuffer input = stored.duplicate();
+    input.get();
+    input.get();
+    ByteBuffer decompressed = ByteBuffer.allocate(input.getInt());
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(input);
+      while (!inflater.finished()) {
+        if (inflater.inflate(decompressed) == 0 && (inflater.needsInput() || !decompressed.hasRemaining())) {
+          throw new IllegalStateException("Compressed value is truncated or corrupt");
+        }
+      }
+      return decompressed.flip();
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Compressed value is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package net.io_0.caja.serialization;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how well the values of a cache compress.
+ */
+public class CompressionStatistics {
+  private final LongAdder values = new LongAdder();
+  private final LongAdder compressedValues = new LongAdder();
+  private final LongAdder serializedBytes = new LongAdder();
+  private final LongAdder storedBytes = new LongAdder();
+
+  void record(int serializedSize, int storedSize, boolean compressed) {
+    values.increment();
+    if (compressed) compressedValues.increment();
+    serializedBytes.add(serializedSize);
+    storedBytes.add(storedSize);
+  }
+
+  /**
+   * @return number of serialized values
+   */
+  public long getValues() {
+    return values.sum();
+  }
+
+  /**
+   * @return number of serialized values which were stored compressed
+   */
+  public long getCompressedValues() {
+    return compressedValues.sum();
+  }
+
+  /**
+   * @return bytes of all serialized values before compression
+   */
+  public long getSerializedBytes() {
+    return serializedBytes.sum();
+  }
+
+  /**
+   * @return bytes of all serialized values as stored, after compression
+   */
+  public long getStoredBytes() {
+    return storedBytes.sum();
+  }
+
+  /**
+   * @return serialized bytes per stored byte, 1 if nothing was stored yet
+   */
+  public double getRatio() {
+    long stored = getStoredBytes();
+    return stored == 0 ? 1 : (double) getSerializedBytes() / stored;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CompressionStatistics(values=%d, compressedValues=%d, serializedBytes=%d, storedBytes=%d, ratio=%.2f)",
+      getValues(), getCompressedValues(), getSerializedBytes(), getStoredBytes(), getRatio());
+  }
+}
@@ -0,0 +1,23 @@
+package net.io_0.caja.serialization;
+
+import lombok.ToString;
+import net.io_0.maja.mapping.Mapper;
+import java.nio.ByteBuffer;
+
+import static io.lettuce.core.codec.StringCodec.UTF8;
+
+/**
+ * Serializes values as JSON, readable by humans and other platforms.
+ */
+@ToString
+public class JsonValueSerializer implements ValueSerializer {
+  @Override
+  public ByteBuffer serialize(Object value) {
+    return UTF8.encodeValue(Mapper.toJson(value));
+  }
+
+  @Override
+  public Object deserialize(ByteBuffer bytes, Class<?> type, Class<?>... subTypes) {
+    return Mapper.fromJson(UTF8.decodeValue(bytes), type, subTypes);
+  }
+}
@@ -0,0 +1,89 @@
+package net.io_0.caja.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.ImmutableCollectionsSerializers;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import lombok.ToString;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Serializes values with Kryo into a compact binary format, straight from and to byte buffers. Much faster and smaller
+ * than JSON for large values, but only readable by Java applications which know the value classes.
+ * <p>
+ * Only registered classes are read, besides primitives, strings and immutable JDK collections, so bytes written to a
+ * shared store by someone else can't make the reader instantiate arbitrary classes. Classes are identified by the order
+ * of their registration, all nodes using a cache must register the same classes in the same order.
+ */
+@ToString
+public class KryoValueSerializer implements ValueSerializer {
+  private static final int INITIAL_BUFFER_SIZE = 256;
+
+  private final boolean registrationRequired;
+  private final List<Class<?>> registeredClasses;
+
+  @ToString.Exclude
+  private final Pool<Kryo> kryos = new Pool<>(true, false) {
+    @Override
+    protected Kryo create() {
+      Kryo kryo = new Kryo();
+      kryo.setRegistrationRequired(registrationRequired);
+      kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+      ImmutableCollectionsSerializers.addDefaultSerializers(kryo);
+      if (registrationRequired) {
+        ImmutableCollectionsSerializers.registerSerializers(kryo);
+        registeredClasses.forEach(kryo::register);
+      }
+      return kryo;
+    }
+  };
+
+  /**
+   * @param registeredClasses all classes that values may contain, other than primitives, strings and immutable JDK
+   *                          collections, e.g. the value class, the classes of its fields and collection classes
+   */
+  public KryoValueSerializer(Class<?>... registeredClasses) {
+    this(true, List.of(registeredClasses));
+  }
+
+  private KryoValueSerializer(boolean registrationRequired, List<Class<?>> registeredClasses) {
+    this.registrationRequired = registrationRequired;
+    this.registeredClasses = registeredClasses;
+  }
+
+  /**
+   * Serializes values of any class, writing the class name along with them. Reading such bytes instantiates whatever
+   * class they name, only use this for data no one else can write, like the local tiers of this process.
+   *
+   * @return a serializer that doesn't require classes to be registered
+   */
+  public static KryoValueSerializer unregistered() {
+    return new KryoValueSerializer(false, List.of());
+  }
+
+  @Override
+  public ByteBuffer serialize(Object value) {
+    Kryo kryo = kryos.obtain();
+    try {
+      Output output = new Output(INITIAL_BUFFER_SIZE, -1);
+      kryo.writeClassAndObject(output, value);
+      return ByteBuffer.wrap(output.getBuffer(), 0, output.position());
+    } finally {
+      kryos.free(kryo);
+    }
+  }
+
+  @Override
+  public Object deserialize(ByteBuffer bytes, Class<?> type, Class<?>... subTypes) {
+    Kryo kryo = kryos.obtain();
+    try {
+      return kryo.readClassAndObject(new ByteBufferInput(bytes));
+    } finally {
+      kryos.free(kryo);
+    }
+  }
+}
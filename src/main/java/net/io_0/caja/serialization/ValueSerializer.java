@@ -0,0 +1,38 @@
+package net.io_0.caja.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns the values of remote caches into bytes and back. Implementations must be thread safe, one instance serves all
+ * caches it is configured for.
+ */
+public interface ValueSerializer {
+  /**
+   * Serializes a value.
+   *
+   * @param value the value to serialize, never {@code null}
+   * @return the serialized value, ready to be read from its position to its limit
+   */
+  ByteBuffer serialize(Object value);
+
+  /**
+   * Serializes a value that is only compared with stored values, e.g. the expected value of a conditional write, not
+   * stored itself. The bytes must equal those {@link #serialize} returns.
+   *
+   * @param value the value to serialize, never {@code null}
+   * @return the serialized value, ready to be read from its position to its limit
+   */
+  default ByteBuffer serializeForComparison(Object value) {
+    return serialize(value);
+  }
+
+  /**
+   * Deserializes a value.
+   *
+   * @param bytes the serialized value, from its position to its limit
+   * @param type the value type of the cache
+   * @param subTypes the value sub types of the cache, e.g. the element type of a collection value type
+   * @return the deserialized value
+   */
+  Object deserialize(ByteBuffer bytes, Class<?> type, Class<?>... subTypes);
+}
@@ -0,0 +1,14 @@
+package net.io_0.caja.sizing;
+
+/**
+ * Estimates the heap memory taken by cached entries, for local caches sized in bytes. Implementations must be thread
+ * safe and fast, entries are weighed whenever they are written.
+ */
+public interface Weigher {
+  /**
+   * @param key the key of the entry
+   * @param value the value of the entry
+   * @return the estimated size of the entry in bytes
+   */
+  long weigh(Object key, Object value);
+}
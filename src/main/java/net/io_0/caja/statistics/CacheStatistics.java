@@ -0,0 +1,211 @@
+package net.io_0.caja.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.isNull;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Lock-free counters, latency histograms and memory gauges of a cache.
+ */
+public class CacheStatistics {
+  /**
+   * Memory gauges read this if the cache has no such tier, or doesn't size it in bytes.
+   */
+  public static final long UNKNOWN = -1;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder stales = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder removes = new LongAdder();
+  private final LongAdder loadSuccesses = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+  private volatile LongSupplier heapInBytes = () -> UNKNOWN;
+  private volatile LongSupplier offHeapInBytes = () -> UNKNOWN;
+  private volatile LongSupplier writeBehindDepth = () -> 0;
+  private volatile LongSupplier serializedBytes = () -> 0;
+  private volatile LongSupplier storedBytes = () -> 0;
+
+  public CacheStatistics() {
+    for (Operation operation : Operation.values()) latencies.put(operation, new LatencyHistogram());
+  }
+
+  public void recordHits(int count) {
+    hits.add(count);
+  }
+
+  public void recordStales(int count) {
+    stales.add(count);
+  }
+
+  public void recordMisses(int count) {
+    misses.add(count);
+  }
+
+  public void recordPuts(int count) {
+    puts.add(count);
+  }
+
+  public void recordRemoves(int count) {
+    removes.add(count);
+  }
+
+  public void recordLoad(boolean success) {
+    (success ? loadSuccesses : loadFailures).increment();
+  }
+
+  /**
+   * Calls the given loader, recording its outcome and latency.
+   *
+   * @param loader supplies the value to load
+   * @return the loaded value
+   */
+  public <V> V recordLoad(Supplier<V> loader) {
+    long start = System.nanoTime();
+    try {
+      V value = loader.get();
+      recordLoad(true);
+      return value;
+    } catch (RuntimeException | Error e) {
+      recordLoad(false);
+      throw e;
+    } finally {
+      recordLatency(Operation.LOAD, start);
+    }
+  }
+
+  /**
+   * Calls the given loader, recording the outcome and latency of the future it returns.
+   *
+   * @param loader supplies the future value to load
+   * @return the future loaded value
+   */
+  public <V> CompletableFuture<V> recordLoadFuture(Supplier<CompletableFuture<V>> loader) {
+    long start = System.nanoTime();
+    CompletableFuture<V> loading;
+    try {
+      loading = loader.get();
+    } catch (RuntimeException | Error e) {
+      recordLoad(false);
+      recordLatency(Operation.LOAD, start);
+      throw e;
+    }
+    return loading.whenComplete((value, error) -> {
+      recordLoad(isNull(error));
+      recordLatency(Operation.LOAD, start);
+    });
+  }
+
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Lets snapshots read the memory taken by the local tiers of the cache.
+   *
+   * @param heapInBytes gauge of the bytes taken on heap
+   * @param offHeapInBytes gauge of the bytes taken off heap
+   */
+  public void gaugeMemory(LongSupplier heapInBytes, LongSupplier offHeapInBytes) {
+    this.heapInBytes = heapInBytes;
+    this.offHeapInBytes = offHeapInBytes;
+  }
+
+  /**
+   * Lets snapshots read the number of writes waiting in the write-behind queue of the cache.
+   *
+   * @param writeBehindDepth gauge of the keys queued or in flight
+   */
+  public void gaugeWriteBehind(LongSupplier writeBehindDepth) {
+    this.writeBehindDepth = writeBehindDepth;
+  }
+
+  /**
+   * Lets snapshots read how well the values stored remotely compress.
+   *
+   * @param serializedBytes gauge of the bytes of all values serialized, before compression
+   * @param storedBytes gauge of the bytes of all values stored, after compression
+   */
+  public void gaugeCompression(LongSupplier serializedBytes, LongSupplier storedBytes) {
+    this.serializedBytes = serializedBytes;
+    this.storedBytes = storedBytes;
+  }
+
+  /**
+   * Records the time passed since the given start.
+   *
+   * @param operation the timed operation
+   * @param startNanos {@link System#nanoTime()} when the operation started
+   */
+  public void recordLatency(Operation operation, long startNanos) {
+    latencies.get(operation).record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return the current values of all counters and histograms
+   */
+  public Snapshot snapshot() {
+    Map<Operation, LatencyHistogram.Snapshot> latencySnapshots = new EnumMap<>(Operation.class);
+    latencies.forEach((operation, histogram) -> latencySnapshots.put(operation, histogram.snapshot()));
+    return new Snapshot(
+      hits.sum(), stales.sum(), misses.sum(), puts.sum(), removes.sum(), loadSuccesses.sum(), loadFailures.sum(), evictions.sum(),
+      heapInBytes.getAsLong(), offHeapInBytes.getAsLong(), writeBehindDepth.getAsLong(), serializedBytes.getAsLong(), storedBytes.getAsLong(),
+      unmodifiableMap(latencySnapshots)
+    );
+  }
+
+  /**
+   * Statistics of a cache at a point in time. Hits and misses count reads of single keys, including reads through,
+   * which count as a miss whether they loaded the value or joined a concurrent load of it. Stale counts reads through
+   * that were served a value past its soft ttl while it is revalidated. Evictions are counted for
+   * local tiers only, Redis evicts unnoticed. Heap and off-heap bytes are gauged for local tiers sized in bytes,
+   * {@link CacheStatistics#UNKNOWN} otherwise. Write-behind depth counts the keys whose writes are queued or in flight,
+   * the {@link Operation#FLUSH} latencies time flushes of the queue. Serialized and stored bytes sum up the values
+   * written to Redis before and after compression, both are 0 for local caches.
+   */
+  @AllArgsConstructor(access = PRIVATE)
+  @Getter @ToString
+  public static class Snapshot {
+    private final long hits;
+    private final long stales;
+    private final long misses;
+    private final long puts;
+    private final long removes;
+    private final long loadSuccesses;
+    private final long loadFailures;
+    private final long evictions;
+    private final long heapInBytes;
+    private final long offHeapInBytes;
+    private final long writeBehindDepth;
+    private final long serializedBytes;
+    private final long storedBytes;
+    private final Map<Operation, LatencyHistogram.Snapshot> latencies;
+
+    /**
+     * @return share of reads that were fresh hits, 0 if there weren't any reads
+     */
+    public double getHitRatio() {
+      long reads = hits + stales + misses;
+      return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    /**
+     * @return serialized bytes per stored byte, 1 if nothing was stored yet
+     */
+    public double getCompressionRatio() {
+      return storedBytes == 0 ? 1 : (double) serializedBytes / storedBytes;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package net.io_0.caja.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Lock-free histogram of latencies with power of two buckets, bucket {@code i} counts latencies below {@code 2^i}
+ * nanoseconds. Percentiles are therefore reported as the upper bound of their bucket, at most twice the real value.
+ */
+public class LatencyHistogram {
+  private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+  LatencyHistogram() {
+    for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+  }
+
+  void record(long nanos) {
+    long latency = Math.max(0, nanos);
+    buckets[Math.min(Long.SIZE - Long.numberOfLeadingZeros(latency), buckets.length - 1)].increment();
+    totalNanos.add(latency);
+    maxNanos.accumulate(latency);
+  }
+
+  Snapshot snapshot() {
+    long[] counts = new long[buckets.length];
+    long count = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      counts[i] = buckets[i].sum();
+      count += counts[i];
+    }
+    long max = maxNanos.get();
+    return new Snapshot(
+      count,
+      Duration.ofNanos(count == 0 ? 0 : totalNanos.sum() / count),
+      percentile(counts, count, 0.5, max),
+      percentile(counts, count, 0.9, max),
+      percentile(counts, count, 0.99, max),
+      Duration.ofNanos(max)
+    );
+  }
+
+  private static Duration percentile(long[] counts, long count, double percentile, long max) {
+    long rank = (long) Math.ceil(count * percentile);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0) return Duration.ofNanos(Math.min(upperBound(i), max));
+    }
+    return Duration.ZERO;
+  }
+
+  private static long upperBound(int bucket) {
+    if (bucket == 0) return 0;
+    return bucket == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  @AllArgsConstructor(access = PRIVATE)
+  @Getter @ToString
+  public static class Snapshot {
+    private final long count;
+    private final Duration mean;
+    private final Duration p50;
+    private final Duration p90;
+    private final Duration p99;
+    private final Duration max;
+  }
+}
@@ -0,0 +1,8 @@
+package net.io_0.caja.statistics;
+
+/**
+ * Cache operations, latencies are recorded per operation.
+ */
+public enum Operation {
+  GET, GET_ALL, PUT, PUT_ALL, CONTAINS_KEY, KEYS, REMOVE, REMOVE_ALL, CLEAR, GET_THROUGH, GET_ALL_THROUGH, LOAD, FLUSH
+}
@@ -0,0 +1,287 @@
+package net.io_0.caja.sync;
+
+import lombok.extern.slf4j.Slf4j;
+import net.io_0.caja.CacheLoader;
+import net.io_0.caja.Expiring;
+import net.io_0.caja.Freshness;
+import net.io_0.caja.LoadLock;
+import net.io_0.caja.SingleFlight;
+import net.io_0.caja.statistics.CacheStatistics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static net.io_0.caja.AsyncUtils.join;
+
+@Slf4j
+public class LoadingDecorator<K, V> extends CacheDecorator<K, V> {
+  private final SingleFlight<K, V> loads;
+  private final LoadLock<K> loadLock;
+  private final CacheStatistics statistics;
+  private final Freshness<K> freshness;
+  private final Executor refreshExecutor;
+  private final CacheLoader<K, V> loader;
+
+  public LoadingDecorator(SingleFlight<K, V> loads, LoadLock<K> loadLock, CacheStatistics statistics, Freshness<K> freshness, Executor refreshExecutor, CacheLoader<K, V> loader, Cache<K, V> cache) {
+    super(cache);
+    this.loads = loads;
+    this.loadLock = loadLock;
+    this.statistics = statistics;
+    this.freshness = freshness;
+    this.refreshExecutor = refreshExecutor;
+    this.loader = loader;
+  }
+
+  @Override
+  public V get(K key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public Map<K, V> getAll(Collection<K> keys) {
+    return cache.getAll(keys);
+  }
+
+  @Override
+  public void put(K key, V value) {
+    cache.put(key, value);
+    freshness.written(key);
+  }
+
+  @Override
+  public void put(K key, V value, Duration ttl) {
+    cache.put(key, value, ttl);
+    // refreshing ahead and soft ttls relate to the ttl of the cache
+    freshness.removed(key);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    V present = cache.putIfAbsent(key, value);
+    if (isNull(present)) freshness.written(key);
+    return present;
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value, Duration ttl) {
+    V present = cache.putIfAbsent(key, value, ttl);
+    // refreshing ahead and soft ttls relate to the ttl of the cache
+    if (isNull(present)) freshness.removed(key);
+    return present;
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    boolean replaced = cache.replace(key, oldValue, newValue);
+    if (replaced) freshness.written(key);
+    return replaced;
+  }
+
+  @Override
+  public void putAll(Map<K, V> entries) {
+    cache.putAll(entries);
+    entries.keySet().forEach(freshness::written);
+  }
+
+  @Override
+  public boolean containsKey(K key) {
+    return cache.containsKey(key);
+  }
+
+  @Override
+  public List<K> keys() {
+    return cache.keys();
+  }
+
+  @Override
+  public Stream<K> streamKeys() {
+    return cache.streamKeys();
+  }
+
+  @Override
+  public void remove(K key) {
+    cache.remove(key);
+    freshness.removed(key);
+  }
+
+  @Override
+  public boolean remove(K key, V value) {
+    boolean removed = cache.remove(key, value);
+    if (removed) freshness.removed(key);
+    return removed;
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    cache.removeAll(keys);
+    keys.forEach(freshness::removed);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+    freshness.cleared();
+  }
+
+  @Override
+  public V getThrough(K key, Supplier<V> valueSupplier) {
+    V value = cache.get(key);
+    if (nonNull(value)) {
+      Freshness.State state = freshness.check(key);
+      if (Freshness.State.STALE.equals(state)) statistics.recordStales(1);
+      else statistics.recordHits(1);
+      if (state.needsRefresh()) refresh(key, () -> completedFuture(valueSupplier.get()));
+      return value;
+    }
+    statistics.recordMisses(1);
+    return join(loads.load(key, () -> loadLocked(key, () -> completedFuture(populate(key, statistics.recordLoad(valueSupplier))))));
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    V value = cache.get(key);
+    if (nonNull(value)) {
+      Freshness.State state = freshness.check(key);
+      if (Freshness.State.STALE.equals(state)) statistics.recordStales(1);
+      else statistics.recordHits(1);
+      if (state.needsRefresh()) refresh(key, valueSupplier);
+      return completedFuture(value);
+    }
+    statistics.recordMisses(1);
+    return loads.load(key, () -> loadLocked(key, () -> statistics.recordLoadFuture(valueSupplier).thenApply(loaded -> populate(key, loaded))));
+  }
+
+  @Override
+  public V getThroughExpiring(K key, Supplier<Expiring<V>> valueSupplier) {
+    V value = cache.get(key);
+    if (nonNull(value)) {
+      statistics.recordHits(1);
+      return value;
+    }
+    statistics.recordMisses(1);
+    return join(loads.load(key, () -> completedFuture(populate(key, statistics.recordLoad(valueSupplier)))));
+  }
+
+  @Override
+  public V getThrough(K key) {
+    CacheLoader<K, V> loader = loader();
+    return getThrough(key, () -> loader.load(key));
+  }
+
+  @Override
+  public Map<K, V> getAllThrough(Collection<K> keys) {
+    return getAllThrough(keys, loader()::loadAll);
+  }
+
+  /**
+   * Loads all missing keys with one call of the values loader. Unlike reads through single keys, concurrent loads of
+   * the same keys aren't collapsed.
+   */
+  @Override
+  public Map<K, V> getAllThrough(Collection<K> keys, Function<Collection<K>, Map<K, V>> valuesLoader) {
+    Map<K, V> values = new HashMap<>(cache.getAll(keys));
+    statistics.recordHits(values.size());
+    List<K> missing = keys.stream().filter(key -> !values.containsKey(key)).distinct().collect(toList());
+    if (missing.isEmpty()) return values;
+
+    statistics.recordMisses(missing.size());
+    Map<K, V> loaded = statistics.recordLoad(() -> valuesLoader.apply(missing));
+    if (!loaded.isEmpty()) {
+      putAll(loaded);
+      statistics.recordPuts(loaded.size());
+    }
+    values.putAll(loaded);
+    return values;
+  }
+
+  private CacheLoader<K, V> loader() {
+    if (isNull(loader)) throw new IllegalStateException("No CacheLoader registered for the cache");
+    return loader;
+  }
+
+  /**
+   * Populates the cache with a loaded value, unless another node populated it meanwhile, then that value wins.
+   * Checking and putting take one round trip. Loaded values are written below the statistics decorator, so their puts
+   * are recorded here, as are those of reloads and loads of all keys.
+   */
+  private V populate(K key, V loaded) {
+    V present = putIfAbsent(key, loaded);
+    if (isNull(present)) statistics.recordPuts(1);
+    return nonNull(present) ? present : loaded;
+  }
+
+  /**
+   * Populates the cache with a loaded value for the time to live it was loaded with, see {@link #populate(Object, Object)}.
+   */
+  private V populate(K key, Expiring<V> loaded) {
+    V present = putIfAbsent(key, loaded.getValue(), loaded.getTtl());
+    if (isNull(present)) statistics.recordPuts(1);
+    return nonNull(present) ? present : loaded.getValue();
+  }
+
+  /**
+   * Runs the given load if this node wins the load lock of the key. Otherwise waits for the value of the winner,
+   * loading itself only if none shows up before the lease of the winner expires. Waiting blocks the calling thread
+   * for up to the lease, the load lock polls the cache on threads of its own.
+   */
+  private CompletableFuture<V> loadLocked(K key, Supplier<CompletableFuture<V>> load) {
+    LoadLock.Lease lease = join(loadLock.acquire(key));
+    if (isNull(lease)) {
+      V loaded = join(loadLock.awaitValue(() -> completedFuture(cache.get(key))));
+      return nonNull(loaded) ? completedFuture(loaded) : load.get();
+    }
+
+    CompletableFuture<V> loading;
+    try {
+      loading = load.get();
+    } catch (RuntimeException | Error e) {
+      lease.release();
+      throw e;
+    }
+    return loading.whenComplete((value, error) -> lease.release());
+  }
+
+  /**
+   * Reloads the value of the given key in the background, callers keep getting the cached value meanwhile.
+   * A failed reload keeps the cached value, reads of the key try again once the retry interval of the freshness passed.
+   * If another node holds the load lock of the key, it is reloading the value already. The reload runs on the refresh
+   * executor, as it blocks on the load lock and the value supplier. It writes the reloaded value only if the key wasn't written or removed on this
+   * node meanwhile, telling by the version of the key rather than by comparing values, which may lack equals.
+   */
+  private void refresh(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    if (freshness.isRetryPending(key)) return;
+    long version = freshness.version(key);
+    loads.load(key, () -> supplyAsync(() -> {
+      LoadLock.Lease lease = join(loadLock.acquire(key));
+      // another node is reloading the value already
+      if (isNull(lease)) return cache.get(key);
+
+      try {
+        V value = join(statistics.recordLoadFuture(valueSupplier));
+        if (nonNull(value) && freshness.version(key) == version) {
+          put(key, value);
+          statistics.recordPuts(1);
+        }
+        return value;
+      } finally {
+        lease.release();
+      }
+    }, refreshExecutor)).whenComplete((value, error) -> {
+      if (isNull(error)) return;
+      freshness.reloadFailed(key);
+      log.warn("Refreshing {} failed, keeping the cached value", key, error);
+    });
+  }
+}
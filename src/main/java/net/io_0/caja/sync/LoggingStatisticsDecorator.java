@@ -1,9 +1,15 @@
 package net.io_0.caja.sync;
 
 import lombok.extern.slf4j.Slf4j;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static net.io_0.caja.LoggingUtils.isEnabled;
 import static net.io_0.caja.LoggingUtils.logThrough;
 import static net.io_0.caja.configuration.CacheConfig.*;
 
@@ -25,12 +31,52 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
     return value;
   }
 
+  @Override
+  public Map<K, V> getAll(Collection<K> keys) {
+    Map<K, V> values = cache.getAll(keys);
+    keys.forEach(key -> log("{}: {} value for '{}'", name, values.containsKey(key) ? "got" : "missed", key));
+    return values;
+  }
+
   @Override
   public void put(K key, V value) {
     log("{}: put value for '{}'", name, key);
     cache.put(key, value);
   }
 
+  @Override
+  public void put(K key, V value, Duration ttl) {
+    log("{}: put value for '{}' with ttl {}", name, key, ttl);
+    cache.put(key, value, ttl);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    V present = cache.putIfAbsent(key, value);
+    log("{}: {} value for '{}'", name, isNull(present) ? "put absent" : "kept present", key);
+    return present;
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value, Duration ttl) {
+    V present = cache.putIfAbsent(key, value, ttl);
+    log("{}: {} value for '{}' with ttl {}", name, isNull(present) ? "put absent" : "kept present", key, ttl);
+    return present;
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    boolean replaced = cache.replace(key, oldValue, newValue);
+    log("{}: {} value for '{}'", name, replaced ? "replaced" : "kept unexpected", key);
+    return replaced;
+  }
+
+  @Override
+  public void putAll(Map<K, V> entries) {
+    entries.keySet().forEach(key -> log("{}: put value for '{}'", name, key));
+    cache.putAll(entries);
+  }
+
   @Override
   public boolean containsKey(K key) {
     boolean isKeyPresent = cache.containsKey(key);
@@ -45,19 +91,51 @@ public class LoggingStatisticsDecorator<K, V> extends CacheDecorator<K, V> {
     return keys;
   }
 
+  @Override
+  public Stream<K> streamKeys() {
+    log("{}: streaming active keys", name);
+    return cache.streamKeys();
+  }
+
   @Override
   public void remove(K key) {
     log("{}: removed value for '{}'", name, key);
     cache.remove(key);
   }
 
+  @Override
+  public boolean remove(K key, V value) {
+    boolean removed = cache.remove(key, value);
+    log("{}: {} value for '{}'", name, removed ? "removed" : "kept unexpected", key);
+    return removed;
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    keys.forEach(key -> log("{}: removed value for '{}'", name, key));
+    cache.removeAll(keys);
+  }
+
   @Override
   public void clear() {
     log("{}: cleared", name);
     cache.clear();
   }
   
-  private void log(String format, Object... arguments) {
-    logThrough(log, this.logLevel, format, arguments);
+  // fixed arities, so disabled levels cost neither an argument array nor a call through
+  private void log(String format, Object argument) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument);
+  }
+
+  private void log(String format, Object argument1, Object argument2) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument1, argument2);
+  }
+
+  private void log(String format, Object argument1, Object argument2, Object argument3) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument1, argument2, argument3);
+  }
+
+  private void log(String format, Object argument1, Object argument2, Object argument3, Object argument4) {
+    if (isEnabled(log, logLevel)) logThrough(log, logLevel, format, argument1, argument2, argument3, argument4);
   }
 }
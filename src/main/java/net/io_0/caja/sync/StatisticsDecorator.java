@@ -0,0 +1,208 @@
+package net.io_0.caja.sync;
+
+import net.io_0.caja.Expiring;
+import net.io_0.caja.statistics.CacheStatistics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static net.io_0.caja.statistics.Operation.*;
+
+public class StatisticsDecorator<K, V> extends CacheDecorator<K, V> {
+  private final CacheStatistics statistics;
+
+  public StatisticsDecorator(CacheStatistics statistics, Cache<K, V> cache) {
+    super(cache);
+    this.statistics = statistics;
+  }
+
+  @Override
+  public V get(K key) {
+    long start = nanoTime();
+    V value = cache.get(key);
+    statistics.recordLatency(GET, start);
+    if (nonNull(value)) statistics.recordHits(1);
+    else statistics.recordMisses(1);
+    return value;
+  }
+
+  @Override
+  public Map<K, V> getAll(Collection<K> keys) {
+    long start = nanoTime();
+    Map<K, V> values = cache.getAll(keys);
+    statistics.recordLatency(GET_ALL, start);
+    statistics.recordHits(values.size());
+    statistics.recordMisses((int) keys.stream().filter(key -> !values.containsKey(key)).distinct().count());
+    return values;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    long start = nanoTime();
+    cache.put(key, value);
+    statistics.recordLatency(PUT, start);
+    statistics.recordPuts(1);
+  }
+
+  @Override
+  public void put(K key, V value, Duration ttl) {
+    long start = nanoTime();
+    cache.put(key, value, ttl);
+    statistics.recordLatency(PUT, start);
+    statistics.recordPuts(1);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    long start = nanoTime();
+    V present = cache.putIfAbsent(key, value);
+    statistics.recordLatency(PUT, start);
+    if (isNull(present)) statistics.recordPuts(1);
+    return present;
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value, Duration ttl) {
+    long start = nanoTime();
+    V present = cache.putIfAbsent(key, value, ttl);
+    statistics.recordLatency(PUT, start);
+    if (isNull(present)) statistics.recordPuts(1);
+    return present;
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    long start = nanoTime();
+    boolean replaced = cache.replace(key, oldValue, newValue);
+    statistics.recordLatency(PUT, start);
+    if (replaced) statistics.recordPuts(1);
+    return replaced;
+  }
+
+  @Override
+  public void putAll(Map<K, V> entries) {
+    long start = nanoTime();
+    cache.putAll(entries);
+    statistics.recordLatency(PUT_ALL, start);
+    statistics.recordPuts(entries.size());
+  }
+
+  @Override
+  public boolean containsKey(K key) {
+    long start = nanoTime();
+    boolean contained = cache.containsKey(key);
+    statistics.recordLatency(CONTAINS_KEY, start);
+    return contained;
+  }
+
+  @Override
+  public List<K> keys() {
+    long start = nanoTime();
+    List<K> keys = cache.keys();
+    statistics.recordLatency(KEYS, start);
+    return keys;
+  }
+
+  @Override
+  public Stream<K> streamKeys() {
+    return cache.streamKeys();
+  }
+
+  @Override
+  public void remove(K key) {
+    long start = nanoTime();
+    cache.remove(key);
+    statistics.recordLatency(REMOVE, start);
+    statistics.recordRemoves(1);
+  }
+
+  @Override
+  public boolean remove(K key, V value) {
+    long start = nanoTime();
+    boolean removed = cache.remove(key, value);
+    statistics.recordLatency(REMOVE, start);
+    if (removed) statistics.recordRemoves(1);
+    return removed;
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    long start = nanoTime();
+    cache.removeAll(keys);
+    statistics.recordLatency(REMOVE_ALL, start);
+    statistics.recordRemoves(keys.size());
+  }
+
+  @Override
+  public void clear() {
+    long start = nanoTime();
+    cache.clear();
+    statistics.recordLatency(CLEAR, start);
+  }
+
+  @Override
+  public V getThrough(K key, Supplier<V> valueSupplier) {
+    long start = nanoTime();
+    try {
+      return cache.getThrough(key, valueSupplier);
+    } finally {
+      statistics.recordLatency(GET_THROUGH, start);
+    }
+  }
+
+  @Override
+  public V getThroughExpiring(K key, Supplier<Expiring<V>> valueSupplier) {
+    long start = nanoTime();
+    try {
+      return cache.getThroughExpiring(key, valueSupplier);
+    } finally {
+      statistics.recordLatency(GET_THROUGH, start);
+    }
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    long start = nanoTime();
+    return cache.getThroughFuture(key, valueSupplier)
+      // failed loads take their time too
+      .whenComplete((value, error) -> statistics.recordLatency(GET_THROUGH, start));
+  }
+
+  @Override
+  public V getThrough(K key) {
+    long start = nanoTime();
+    try {
+      return cache.getThrough(key);
+    } finally {
+      statistics.recordLatency(GET_THROUGH, start);
+    }
+  }
+
+  @Override
+  public Map<K, V> getAllThrough(Collection<K> keys) {
+    long start = nanoTime();
+    try {
+      return cache.getAllThrough(keys);
+    } finally {
+      statistics.recordLatency(GET_ALL_THROUGH, start);
+    }
+  }
+
+  @Override
+  public Map<K, V> getAllThrough(Collection<K> keys, Function<Collection<K>, Map<K, V>> valuesLoader) {
+    long start = nanoTime();
+    try {
+      return cache.getAllThrough(keys, valuesLoader);
+    } finally {
+      statistics.recordLatency(GET_ALL_THROUGH, start);
+    }
+  }
+}
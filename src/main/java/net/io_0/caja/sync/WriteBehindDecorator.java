@@ -0,0 +1,123 @@
+package net.io_0.caja.sync;
+
+import net.io_0.caja.WriteBehind;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static net.io_0.caja.AsyncUtils.join;
+
+/**
+ * Queues puts and removes in the write-behind queue of the cache, reads see queued writes before they reach the cache.
+ * Writers only wait for the queue if it is full.
+ */
+public class WriteBehindDecorator<K, V> extends CacheDecorator<K, V> {
+  private final WriteBehind<K, V> writeBehind;
+
+  public WriteBehindDecorator(WriteBehind<K, V> writeBehind, Cache<K, V> cache) {
+    super(cache);
+    this.writeBehind = writeBehind;
+  }
+
+  @Override
+  public V get(K key) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    return isNull(write) ? cache.get(key) : write.getValue();
+  }
+
+  @Override
+  public Map<K, V> getAll(Collection<K> keys) {
+    Map<K, V> values = new HashMap<>();
+    List<K> unqueued = new ArrayList<>();
+    for (K key : keys) {
+      WriteBehind.Write<V> write = writeBehind.lookup(key);
+      if (isNull(write)) unqueued.add(key);
+      else if (!write.isRemove()) values.put(key, write.getValue());
+    }
+    if (!unqueued.isEmpty()) values.putAll(cache.getAll(unqueued));
+    return values;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    join(writeBehind.put(key, value));
+  }
+
+  @Override
+  public void put(K key, V value, Duration ttl) {
+    join(writeBehind.put(key, value, ttl));
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    if (nonNull(write) && !write.isRemove()) return write.getValue();
+    join(writeBehind.settle(key));
+    return cache.putIfAbsent(key, value);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value, Duration ttl) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    if (nonNull(write) && !write.isRemove()) return write.getValue();
+    join(writeBehind.settle(key));
+    return cache.putIfAbsent(key, value, ttl);
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    join(writeBehind.settle(key));
+    return cache.replace(key, oldValue, newValue);
+  }
+
+  @Override
+  public void putAll(Map<K, V> entries) {
+    entries.forEach((key, value) -> join(writeBehind.put(key, value)));
+  }
+
+  @Override
+  public boolean containsKey(K key) {
+    WriteBehind.Write<V> write = writeBehind.lookup(key);
+    return isNull(write) ? cache.containsKey(key) : !write.isRemove();
+  }
+
+  @Override
+  public List<K> keys() {
+    join(writeBehind.flush());
+    return cache.keys();
+  }
+
+  @Override
+  public Stream<K> streamKeys() {
+    join(writeBehind.flush());
+    return cache.streamKeys();
+  }
+
+  @Override
+  public void remove(K key) {
+    join(writeBehind.remove(key));
+  }
+
+  @Override
+  public boolean remove(K key, V value) {
+    join(writeBehind.settle(key));
+    return cache.remove(key, value);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    keys.forEach(key -> join(writeBehind.remove(key)));
+  }
+
+  @Override
+  public void clear() {
+    join(writeBehind.discard());
+    cache.clear();
+  }
+}
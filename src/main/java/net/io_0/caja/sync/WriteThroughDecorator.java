@@ -0,0 +1,147 @@
+package net.io_0.caja.sync;
+
+import net.io_0.caja.CacheWriter;
+import net.io_0.caja.Expiring;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Writes puts and removes through the {@link CacheWriter} registered for the cache. Reads through are passed on
+ * as they are, so loaded values aren't written back.
+ */
+public class WriteThroughDecorator<K, V> extends CacheDecorator<K, V> {
+  private final CacheWriter<K, V> writer;
+
+  public WriteThroughDecorator(CacheWriter<K, V> writer, Cache<K, V> cache) {
+    super(cache);
+    this.writer = writer;
+  }
+
+  @Override
+  public V get(K key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public Map<K, V> getAll(Collection<K> keys) {
+    return cache.getAll(keys);
+  }
+
+  @Override
+  public void put(K key, V value) {
+    writer.write(key, value);
+    cache.put(key, value);
+  }
+
+  @Override
+  public void put(K key, V value, Duration ttl) {
+    // a put the cache rejects isn't written through either
+    Duration checked = Expiring.checkTtl(ttl);
+    writer.write(key, value);
+    cache.put(key, value, checked);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    V present = cache.putIfAbsent(key, value);
+    if (isNull(present)) writer.write(key, value);
+    return present;
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value, Duration ttl) {
+    V present = cache.putIfAbsent(key, value, ttl);
+    if (isNull(present)) writer.write(key, value);
+    return present;
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    boolean replaced = cache.replace(key, oldValue, newValue);
+    if (replaced) writer.write(key, newValue);
+    return replaced;
+  }
+
+  @Override
+  public void putAll(Map<K, V> entries) {
+    writer.writeAll(entries);
+    cache.putAll(entries);
+  }
+
+  @Override
+  public boolean containsKey(K key) {
+    return cache.containsKey(key);
+  }
+
+  @Override
+  public List<K> keys() {
+    return cache.keys();
+  }
+
+  @Override
+  public Stream<K> streamKeys() {
+    return cache.streamKeys();
+  }
+
+  @Override
+  public void remove(K key) {
+    writer.delete(key);
+    cache.remove(key);
+  }
+
+  @Override
+  public boolean remove(K key, V value) {
+    boolean removed = cache.remove(key, value);
+    if (removed) writer.delete(key);
+    return removed;
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    writer.deleteAll(keys);
+    cache.removeAll(keys);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+
+  @Override
+  public V getThrough(K key, Supplier<V> valueSupplier) {
+    return cache.getThrough(key, valueSupplier);
+  }
+
+  @Override
+  public CompletableFuture<V> getThroughFuture(K key, Supplier<CompletableFuture<V>> valueSupplier) {
+    return cache.getThroughFuture(key, valueSupplier);
+  }
+
+  @Override
+  public V getThroughExpiring(K key, Supplier<Expiring<V>> valueSupplier) {
+    return cache.getThroughExpiring(key, valueSupplier);
+  }
+
+  @Override
+  public V getThrough(K key) {
+    return cache.getThrough(key);
+  }
+
+  @Override
+  public Map<K, V> getAllThrough(Collection<K> keys) {
+    return cache.getAllThrough(keys);
+  }
+
+  @Override
+  public Map<K, V> getAllThrough(Collection<K> keys, Function<Collection<K>, Map<K, V>> valuesLoader) {
+    return cache.getAllThrough(keys, valuesLoader);
+  }
+}
@@ -4,10 +4,12 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
 import static net.io_0.caja.AsyncUtils.MAX_NANO_DURATION;
 import static net.io_0.caja.AsyncUtils.await;
+import static net.io_0.caja.AsyncUtils.join;
 import static org.junit.jupiter.api.Assertions.*;
 
 class AsyncUtilsTest {
@@ -22,6 +24,16 @@ class AsyncUtilsTest {
     assertEquals(DONE, await(CompletableFuture.supplyAsync(sleepySupplier), MAX_NANO_DURATION.plusMillis(10)));
   }
 
+  @Test
+  void joinFuture() {
+    assertEquals(DONE, join(CompletableFuture.supplyAsync(sleepySupplier)));
+
+    // unchecked failures are thrown as is, whether exceptions or errors
+    assertThrows(IllegalStateException.class, () -> join(CompletableFuture.failedFuture(new IllegalStateException())));
+    assertThrows(AssertionError.class, () -> join(CompletableFuture.failedFuture(new AssertionError())));
+    assertThrows(CompletionException.class, () -> join(CompletableFuture.failedFuture(new Exception())));
+  }
+
   private static final String DONE = "done";
 
   private Supplier<String> sleepySupplier = () -> {
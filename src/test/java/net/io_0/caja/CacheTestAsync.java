@@ -3,19 +3,41 @@ package net.io_0.caja;
 import net.io_0.caja.configuration.CacheConfig.LogLevel;
 import net.io_0.caja.configuration.CacheManagerConfig;
 import net.io_0.caja.configuration.LocalCacheConfig;
+import net.io_0.caja.configuration.NearCacheConfig;
 import net.io_0.caja.configuration.RemoteCacheConfig;
 import net.io_0.caja.async.Cache;
 import net.io_0.caja.models.ComplexKey;
+import net.io_0.caja.models.Counter;
 import net.io_0.caja.models.ComplexValue;
 import net.io_0.caja.models.Nested;
+import net.io_0.caja.serialization.KryoValueSerializer;
+import net.io_0.caja.statistics.CacheStatistics;
+import net.io_0.caja.statistics.Operation;
 import org.junit.jupiter.api.*;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -23,6 +45,7 @@ import static java.lang.String.format;
 import static java.time.Instant.now;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.CompletableFuture.failedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static net.io_0.caja.Asserts.assertCollectionEquals;
 import static net.io_0.caja.AsyncUtils.await;
 import static net.io_0.caja.CacheManager.*;
@@ -82,7 +105,7 @@ class CacheTestAsync {
   @Test
   void useCacheConveniently() {
     // Given a cache, data and keys
-    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
 
     // When the data is cached
     fillCaches(aCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2));
@@ -112,8 +135,8 @@ class CacheTestAsync {
   @Test
   void cachesShouldNotInteract() {
     // Given a cache, data and keys
-    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
-    List<Cache<String, Integer>> bCaches = setupCaches(CACHE_B, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager7, cacheManager9);
+    List<Cache<String, Integer>> bCaches = setupCaches(CACHE_B, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager7, cacheManager9);
 
     // When the data is cached
     fillCaches(aCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2));
@@ -131,9 +154,9 @@ class CacheTestAsync {
   @Test
   void cachedKeysShouldBeRetrievable() {
     // Given a cache, data and keys
-    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
-    List<Cache<String, Integer>> bCaches = setupCaches(CACHE_B, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
-    List<Cache<ComplexKey, ComplexValue>> cCaches = setupCaches(CACHE_C, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
+    List<Cache<String, Integer>> bCaches = setupCaches(CACHE_B, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
+    List<Cache<ComplexKey, ComplexValue>> cCaches = setupCaches(CACHE_C, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
 
     fillCaches(aCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2));
     fillCaches(bCaches, Map.of(oneKey3, oneValue3, oneKey4, oneValue4));
@@ -175,9 +198,9 @@ class CacheTestAsync {
   @Test
   void cachesShouldBeClearable() {
     // Given a cache, data and keys
-    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
-    List<Cache<String, Integer>> bCaches = setupCaches(CACHE_B, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
-    List<Cache<ComplexKey, ComplexValue>> cCaches = setupCaches(CACHE_C, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
+    List<Cache<String, Integer>> bCaches = setupCaches(CACHE_B, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
+    List<Cache<ComplexKey, ComplexValue>> cCaches = setupCaches(CACHE_C, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
 
     fillCaches(aCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2));
     fillCaches(bCaches, Map.of(oneKey3, oneValue3, oneKey4, oneValue4));
@@ -211,7 +234,7 @@ class CacheTestAsync {
   @Test
   void cachesShouldHandleNonPrimitives() {
     // Given a cache, data and keys
-    List<Cache<ComplexKey, ComplexValue>> aCaches = setupCaches(CACHE_A, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+    List<Cache<ComplexKey, ComplexValue>> aCaches = setupCaches(CACHE_A, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager7, cacheManager9);
 
     // When the data is cached
     fillCaches(aCaches, Map.of(complexKey1, complexValue1, complexKey2, complexValue2));
@@ -221,6 +244,378 @@ class CacheTestAsync {
     assertValuesPresent(aCaches, Map.of(complexKey1, complexValue1, complexKey2, complexValue2));
   }
 
+  /**
+   * Scenario: Caches should be able to handle values serialized in binary
+   */
+  @Test
+  void cachesShouldHandleBinarySerializedValues() {
+    // Given a cache serializing values in binary, data and keys
+    List<Cache<ComplexKey, ComplexValue>> fCaches = setupCaches(CACHE_F, ComplexKey.class, ComplexValue.class, cacheManager5);
+
+    // When the data is cached
+    fillCaches(fCaches, Map.of(complexKey1, complexValue1, complexKey2, complexValue2));
+
+    // Then the data should be retrievable
+    assertKeysPresent(fCaches, List.of(complexKey1, complexKey2));
+    assertValuesPresent(fCaches, Map.of(complexKey1, complexValue1, complexKey2, complexValue2));
+    fCaches.forEach(c -> assertEquals(Map.of(complexKey1, complexValue1, complexKey2, complexValue2), await(c.getAll(List.of(complexKey1, complexKey2)))));
+  }
+
+  /**
+   * Scenario: Caches should compress large values and read compressed and uncompressed values side by side
+   */
+  @Test
+  void cachesShouldCompressLargeValues() {
+    // Given a compressing cache, a not compressing cache sharing the remote tier, and a large and a small value
+    Cache<String, String> compressingCache = cacheManager5.getAsAsync(CACHE_G, String.class, String.class);
+    Cache<String, String> plainCache = cacheManager4.getAsAsync(CACHE_G, String.class, String.class);
+    String largeValue = "a large value ".repeat(100);
+    String smallValue = "a small value";
+
+    // When the values are cached
+    await(compressingCache.put(oneKey1, largeValue));
+    await(compressingCache.put(oneKey2, smallValue));
+
+    // Then only the large value should be compressed
+    assertEquals(1, cacheManager5.getCompressionStatistics(CACHE_G).getCompressedValues());
+    assertTrue(cacheManager5.getCompressionStatistics(CACHE_G).getRatio() > 10);
+    assertTrue(cacheManager5.getStatistics(CACHE_G).getCompressionRatio() > 10);
+
+    // And both values should be retrievable, also without compression
+    assertEquals(largeValue, await(compressingCache.get(oneKey1)));
+    assertEquals(smallValue, await(compressingCache.get(oneKey2)));
+    assertEquals(largeValue, await(plainCache.get(oneKey1)));
+
+    // And uncompressed values should be retrievable by the compressing cache
+    await(plainCache.put(oneKey3, largeValue));
+    assertEquals(largeValue, await(compressingCache.get(oneKey3)));
+  }
+
+  /**
+   * Scenario: Caches should expire entries after a time to live given per entry
+   */
+  @Test
+  void cachesShouldExpireEntriesByTheirOwnTtl() {
+    // Given caches, one local and one near, which is backed by a remote one
+    List<Cache<String, Integer>> kCaches = setupCaches(CACHE_K, String.class, Integer.class, cacheManager2, cacheManager7);
+
+    // When entries are cached with and without a time to live of their own
+    kCaches.forEach(c -> {
+      await(c.put(oneKey1, oneValue1, Duration.ofMillis(300)));
+      await(c.put(oneKey2, oneValue2));
+      await(c.getThroughExpiringFuture(oneKey3, () -> completedFuture(Expiring.of(oneValue3, Duration.ofMillis(300)))));
+    });
+
+    // Then they should be retrievable
+    assertValuesPresent(kCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2, oneKey3, oneValue3));
+
+    // And the ones with a time to live of their own should expire after it
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> allKeysAbsent(kCaches, List.of(oneKey1, oneKey3)));
+    assertValuesPresent(kCaches, Map.of(oneKey2, oneValue2));
+
+    // And times to live that aren't positive should be rejected by local and remote caches alike
+    kCaches.forEach(c -> {
+      assertThrows(IllegalArgumentException.class, () -> c.put(oneKey4, oneValue4, Duration.ZERO));
+      assertThrows(IllegalArgumentException.class, () -> c.put(oneKey4, oneValue4, Duration.ofMillis(-1)));
+      assertThrows(RuntimeException.class, () -> await(c.getThroughExpiringFuture(oneKey4, () -> completedFuture(Expiring.of(oneValue4, Duration.ZERO)))));
+      assertFalse(await(c.containsKey(oneKey4)), format("Cache %d", kCaches.indexOf(c)+1));
+    });
+
+    // And ones below a millisecond should be rounded up to one
+    kCaches.forEach(c -> assertDoesNotThrow(() -> await(c.put(oneKey4, oneValue4, Duration.ofNanos(1))), format("Cache %d", kCaches.indexOf(c)+1)));
+    assertEquals(Duration.ofMillis(1), Expiring.of(oneValue4, Duration.ofNanos(1)).getTtl());
+  }
+
+  /**
+   * Scenario: Caches with a time to idle should expire entries which aren't read
+   */
+  @Test
+  void cachesShouldExpireIdleEntries() {
+    // Given caches, one local and two remote, one of them in a cluster, with a time to idle below their ttl
+    List<Cache<String, Integer>> lCaches = List.of(
+      cacheManager1.getAsAsync(CACHE_L, Context.ofDefaultConfig(new LocalCacheConfig().setTtlInSeconds(4).setTtiInSeconds(1)), String.class, Integer.class),
+      cacheManager2.getAsAsync(CACHE_L, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(4).setTtiInSeconds(1).setHost("redis://localhost:6379/0")), String.class, Integer.class),
+      cacheManager9.getAsAsync(CACHE_L, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(4).setTtiInSeconds(1).setHost("redis://localhost:7000").setCluster(true)), String.class, Integer.class)
+    );
+    fillCaches(lCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2));
+    long filled = System.currentTimeMillis();
+
+    // When only one of the entries is read for longer than the time to idle
+    for (int i = 0; i < 4; i++) {
+      sleep(400);
+      lCaches.forEach(c -> {
+        assertEquals(oneValue1, await(c.get(oneKey1)));
+        assertEquals(Map.of(oneKey1, oneValue1), await(c.getAll(List.of(oneKey1))));
+      });
+    }
+
+    // Then the read entry should still be there, but the idle one not
+    assertValuesPresent(lCaches, Map.of(oneKey1, oneValue1));
+    assertValuesAbsent(lCaches, List.of(oneKey2));
+
+    // And the read entry should still expire at its ttl, though it keeps being read every half of the time to idle
+    while (System.currentTimeMillis() - filled < 4500) {
+      sleep(500);
+      boolean beforeTtl = System.currentTimeMillis() - filled < 3500;
+      lCaches.forEach(c -> {
+        Integer value = await(c.get(oneKey1));
+        if (beforeTtl) assertEquals(oneValue1, value);
+      });
+    }
+    assertValuesAbsent(lCaches, List.of(oneKey1));
+  }
+
+  /**
+   * Scenario: Caches should put, replace and remove values only if the present value is the expected one
+   */
+  @Test
+  void cachesShouldWriteConditionally() {
+    // Given caches, one local and one near, which is backed by a remote one
+    List<Cache<String, Integer>> mCaches = setupCaches(CACHE_M, String.class, Integer.class, cacheManager2, cacheManager7);
+    fillCaches(mCaches, Map.of(oneKey1, oneValue1));
+
+    mCaches.forEach(c -> {
+      // When putting if absent, Then only absent keys should be put
+      assertEquals(oneValue1, await(c.putIfAbsent(oneKey1, oneValue2)));
+      assertNull(await(c.putIfAbsent(oneKey2, oneValue2)));
+
+      // When replacing, Then only the expected value should be replaced
+      assertFalse(await(c.replace(oneKey1, oneValue2, oneValue3)));
+      assertTrue(await(c.replace(oneKey1, oneValue1, oneValue3)));
+
+      // When removing, Then only the expected value should be removed
+      assertFalse(await(c.remove(oneKey1, oneValue1)));
+      assertTrue(await(c.remove(oneKey1, oneValue3)));
+    });
+
+    // Then only the expected writes should have happened
+    assertValuesPresent(mCaches, Map.of(oneKey2, oneValue2));
+    assertValuesAbsent(mCaches, List.of(oneKey1));
+  }
+
+  /**
+   * Scenario: Caches of different nodes reading through the same key at once should agree on one value
+   */
+  @Test
+  void cachesShouldAgreeOnValuesReadThrough() {
+    // Given two nodes sharing a remote cache
+    Cache<String, Integer> node1 = cacheManager1.getAsAsync(CACHE_N, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis://localhost:6379/0")), String.class, Integer.class);
+    Cache<String, Integer> node2 = cacheManager2.getAsAsync(CACHE_N, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis://localhost:6379/0")), String.class, Integer.class);
+
+    // When one node populates a key while the other one is loading it
+    Integer value = await(node2.getThrough(oneKey1, () -> {
+      await(node1.getThrough(oneKey1, () -> oneValue1));
+      return oneValue2;
+    }));
+
+    // Then the node loading last should give up its value for the present one
+    assertEquals(oneValue1, value);
+    assertValuesPresent(List.of(node1, node2), Map.of(oneKey1, oneValue1));
+
+    // And so should it when reading through with a time to live of its own
+    Integer expiringValue = await(node2.getThroughExpiringFuture(oneKey2, () -> {
+      await(node1.getThroughExpiringFuture(oneKey2, () -> completedFuture(Expiring.of(oneValue1, Duration.ofSeconds(1)))));
+      return completedFuture(Expiring.of(oneValue2, Duration.ofSeconds(1)));
+    }));
+    assertEquals(oneValue1, expiringValue);
+    assertValuesPresent(List.of(node1, node2), Map.of(oneKey2, oneValue1));
+  }
+
+  /**
+   * Scenario: Caches should count hits, misses, writes and loads and time their operations
+   */
+  @Test
+  void cachesShouldRecordStatistics() {
+    // Given caches, one local and one remote
+    List<Cache<String, Integer>> hCaches = setupCaches(CACHE_H, String.class, Integer.class, cacheManager2, cacheManager4);
+
+    // When the caches are read, also with a repeated key, written and read through
+    hCaches.forEach(c -> {
+      await(c.get(oneKey1));
+      await(c.put(oneKey1, oneValue1));
+      await(c.get(oneKey1));
+      await(c.getThroughFuture(oneKey2, () -> completedFuture(oneValue2)));
+      await(c.getThroughFuture(oneKey2, () -> completedFuture(oneValue3)));
+      assertThrows(RuntimeException.class, () -> await(c.getThroughFuture(oneKey3, () -> failedFuture(new IllegalStateException()))));
+      await(c.getAll(List.of(oneKey1, oneKey3, oneKey3)));
+      await(c.removeAll(List.of(oneKey1, oneKey2)));
+    });
+
+    // Then every cache should have counted them
+    for (CacheManager manager : List.of(cacheManager2, cacheManager4)) {
+      CacheStatistics.Snapshot statistics = manager.getStatistics().get(CACHE_H);
+      assertEquals(3, statistics.getHits());
+      // a key missing twice in one read is one miss
+      assertEquals(4, statistics.getMisses());
+      assertEquals(3.0 / 7, statistics.getHitRatio());
+      // one put and one value loaded through
+      assertEquals(2, statistics.getPuts());
+      assertEquals(2, statistics.getRemoves());
+      assertEquals(1, statistics.getLoadSuccesses());
+      assertEquals(1, statistics.getLoadFailures());
+      assertEquals(2, statistics.getLatencies().get(Operation.GET).getCount());
+      assertEquals(1, statistics.getLatencies().get(Operation.GET_ALL).getCount());
+      assertEquals(2, statistics.getLatencies().get(Operation.LOAD).getCount());
+      assertEquals(3, statistics.getLatencies().get(Operation.GET_THROUGH).getCount());
+      assertTrue(statistics.getLatencies().get(Operation.GET).getMax().toNanos() > 0);
+    }
+
+    // And local caches should count evictions
+    IntStream.range(0, 20).forEach(i -> await(hCaches.get(0).put("key" + i, i)));
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> cacheManager2.getStatistics(CACHE_H).getEvictions() >= 10);
+  }
+
+  /**
+   * Scenario: Caches should serve values past their soft ttl while revalidating them, even if revalidation fails
+   */
+  @Test
+  void cachesShouldServeStaleValues() {
+    // Given caches, one local and one remote, with a soft ttl below their ttl
+    List<Cache<String, Integer>> jCaches = List.of(
+      cacheManager1.getAsAsync(CACHE_J, Context.ofDefaultConfig(new LocalCacheConfig().setTtlInSeconds(4).setSoftTtlInSeconds(1)), String.class, Integer.class),
+      cacheManager2.getAsAsync(CACHE_J, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(4).setSoftTtlInSeconds(1).setHost("redis://localhost:6379/0")), String.class, Integer.class)
+    );
+    jCaches.forEach(c -> await(c.getThroughFuture(oneKey1, () -> completedFuture(oneValue1))));
+
+    // When they are read through past the soft ttl, while the value supplier fails
+    sleep(1200);
+    jCaches.forEach(c -> assertEquals(oneValue1, await(c.getThroughFuture(oneKey1, () -> failedFuture(new IllegalStateException())))));
+
+    // Then the stale value should still be served after the failed revalidation
+    for (CacheManager manager : List.of(cacheManager1, cacheManager2)) {
+      org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> manager.getStatistics(CACHE_J).getLoadFailures() == 1);
+    }
+
+    // And it shouldn't be revalidated again before half the soft ttl passed
+    jCaches.forEach(c -> assertEquals(oneValue1, await(c.getThroughFuture(oneKey1, () -> completedFuture(oneValue2)))));
+    sleep(100);
+    jCaches.forEach(c -> assertEquals(oneValue1, await(c.get(oneKey1))));
+    for (CacheManager manager : List.of(cacheManager1, cacheManager2)) {
+      assertEquals(1, manager.getStatistics(CACHE_J).getLoadFailures());
+      assertEquals(1, manager.getStatistics(CACHE_J).getLoadSuccesses());
+    }
+    sleep(500);
+    jCaches.forEach(c -> assertEquals(oneValue1, await(c.getThroughFuture(oneKey1, () -> completedFuture(oneValue2)))));
+
+    // And the value should be revalidated in the background once the value supplier works again
+    jCaches.forEach(c -> org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> oneValue2.equals(await(c.get(oneKey1)))));
+
+    // And stale reads should be counted apart from hits and misses
+    for (CacheManager manager : List.of(cacheManager1, cacheManager2)) {
+      CacheStatistics.Snapshot statistics = manager.getStatistics(CACHE_J);
+      assertEquals(3, statistics.getStales());
+      assertEquals(1, statistics.getMisses());
+    }
+  }
+
+  /**
+   * Scenario: Caches should age values written by other cache managers from when they were written
+   */
+  @Test
+  void cachesShouldServeStaleValuesWrittenElsewhere() {
+    // Given two cache managers sharing a remote cache with a soft ttl below its ttl
+    RemoteCacheConfig config = new RemoteCacheConfig().setTtlInSeconds(4).setSoftTtlInSeconds(1).setHost("redis://localhost:6379/0");
+    Cache<String, Integer> writer = cacheManager1.getAsAsync(CACHE_T, Context.ofDefaultConfig(config), String.class, Integer.class);
+    Cache<String, Integer> reader = cacheManager2.getAsAsync(CACHE_T, Context.ofDefaultConfig(config), String.class, Integer.class);
+    await(writer.put(oneKey1, oneValue1));
+
+    // When the value is first read through by the other cache manager past the soft ttl
+    sleep(1200);
+    assertEquals(oneValue1, await(reader.getThroughFuture(oneKey1, () -> completedFuture(oneValue2))));
+
+    // Then it should be served stale and revalidated in the background
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> oneValue2.equals(await(reader.get(oneKey1))));
+    assertEquals(1, cacheManager2.getStatistics(CACHE_T).getStales());
+  }
+
+  /**
+   * Scenario: Caches should reload values read after a configured fraction of their ttl in the background
+   */
+  @Test
+  void cachesShouldRefreshAhead() {
+    // Given caches, one local and one remote, which refresh after half of their ttl
+    List<Cache<String, Integer>> iCaches = List.of(
+      cacheManager1.getAsAsync(CACHE_I, Context.ofDefaultConfig(new LocalCacheConfig().setTtlInSeconds(2).setRefreshAheadFactor(0.5)), String.class, Integer.class),
+      cacheManager2.getAsAsync(CACHE_I, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(2).setRefreshAheadFactor(0.5).setHost("redis://localhost:6379/0")), String.class, Integer.class)
+    );
+    iCaches.forEach(c -> await(c.getThroughFuture(oneKey1, () -> completedFuture(oneValue1))));
+
+    // When they are read through after half of the ttl
+    sleep(1200);
+
+    // Then the cached value should still be returned
+    iCaches.forEach(c -> assertEquals(oneValue1, await(c.getThroughFuture(oneKey1, () -> completedFuture(oneValue2)))));
+
+    // And the value should be reloaded in the background
+    iCaches.forEach(c -> org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> oneValue2.equals(await(c.get(oneKey1)))));
+
+    // And it should outlive the ttl of the first value
+    sleep(1000);
+    iCaches.forEach(c -> assertEquals(oneValue2, await(c.get(oneKey1))));
+  }
+
+  /**
+   * Scenario: Caches should refresh ahead values of types without value equality
+   */
+  @Test
+  void cachesShouldRefreshAheadValuesWithoutEquals() {
+    // Given caches, one local and one remote, which refresh after half of their ttl and cache values without equals
+    List<Cache<String, Counter>> cCaches = List.of(
+      cacheManager1.getAsAsync(CACHE_V, Context.ofDefaultConfig(new LocalCacheConfig().setTtlInSeconds(2).setRefreshAheadFactor(0.5)), String.class, Counter.class),
+      cacheManager2.getAsAsync(CACHE_V, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(2).setRefreshAheadFactor(0.5).setHost("redis://localhost:6379/0")), String.class, Counter.class)
+    );
+    cCaches.forEach(c -> await(c.getThroughFuture(oneKey1, () -> completedFuture(new Counter(1)))));
+
+    // When they are read through after half of the ttl
+    sleep(1200);
+
+    // Then the cached value should still be returned
+    cCaches.forEach(c -> assertEquals(1, await(c.getThroughFuture(oneKey1, () -> completedFuture(new Counter(2)))).getCount()));
+
+    // And the value should be reloaded in the background, though the cached copy doesn't equal the value read
+    cCaches.forEach(c -> org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> await(c.get(oneKey1)).getCount() == 2));
+  }
+
+  /**
+   * Scenario: Local caches should complete in-memory operations inline and hand blocking ones to their executor
+   */
+  @Test
+  void localCachesShouldCompleteInMemoryOperationsInline() {
+    // Given a local cache completing inline and one completing on its executor, both counting executor tasks
+    AtomicInteger tasks = new AtomicInteger();
+    ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    Executor executor = task -> {
+      tasks.incrementAndGet();
+      virtualThreads.execute(task);
+    };
+    CacheManager inlineManager = new CacheManager(new LocalCacheConfig().setExecutor(executor));
+    CacheManager executorManager = new CacheManager(new LocalCacheConfig().setInlineCompletion(false).setExecutor(executor));
+    Cache<String, Integer> inlineCache = inlineManager.getAsAsync(CACHE_A, String.class, Integer.class);
+    Cache<String, Integer> executorCache = executorManager.getAsAsync(CACHE_A, String.class, Integer.class);
+
+    // When in-memory operations are called
+    CompletableFuture<Void> put = inlineCache.put(oneKey1, oneValue1);
+    CompletableFuture<Integer> get = inlineCache.get(oneKey1);
+
+    // Then they should be completed already, without using the executor
+    assertTrue(put.isDone());
+    assertEquals(oneValue1, get.getNow(null));
+    assertEquals(0, tasks.get());
+
+    // And blocking operations should use the executor
+    assertEquals(List.of(oneKey1), await(inlineCache.keys()));
+    assertEquals(1, tasks.get());
+
+    // And caches not completing inline should use the executor for all operations
+    await(executorCache.put(oneKey1, oneValue1));
+    assertEquals(oneValue1, await(executorCache.get(oneKey1)));
+    assertEquals(3, tasks.get());
+
+    inlineManager.close();
+    executorManager.close();
+    virtualThreads.shutdown();
+  }
+
   /**
    * Scenario: Caches should be able to handle Collections and Maps as value data
    */
@@ -228,11 +623,11 @@ class CacheTestAsync {
   void cachesShouldHandleCollectionsAndMapValues() {
     // Given a cache, data and keys
     List<Cache<String, List<ComplexValue>>> aCaches = (List<Cache<String, List<ComplexValue>>>)(List<?>)
-      setupCaches(CACHE_A, String.class, List.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+      setupCaches(CACHE_A, String.class, List.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
     List<Cache<String, Set<ComplexValue>>> bCaches = (List<Cache<String, Set<ComplexValue>>>)(List<?>)
-      setupCaches(CACHE_B, String.class, Set.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+      setupCaches(CACHE_B, String.class, Set.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
     List<Cache<String, Map<String, ComplexValue>>> cCaches = (List<Cache<String, Map<String, ComplexValue>>>)(List<?>)
-      setupCaches(CACHE_C, String.class, Map.class, String.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5);
+      setupCaches(CACHE_C, String.class, Map.class, String.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager9);
 
     // When the data is cached
     fillCaches(aCaches, Map.of(oneKey1, List.of(complexValue1, complexValue2), oneKey2, List.of(complexValue2, complexValue1)));
@@ -264,15 +659,398 @@ class CacheTestAsync {
     assertEquals(oneValue1, await(cache.get(oneKey1)));
   }
 
+  /**
+   * Scenario: It should be possible to cache, retrieve and remove many entries at once
+   */
+  @Test
+  void bulkOperationsShouldHandleManyEntries() {
+    // Given a cache, data and keys
+    List<Cache<String, Integer>> aCaches = setupCaches(CACHE_A, String.class, Integer.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager7, cacheManager9);
+    List<Cache<ComplexKey, ComplexValue>> cCaches = setupCaches(CACHE_C, ComplexKey.class, ComplexValue.class, cacheManager1, cacheManager2, cacheManager3, cacheManager4, cacheManager5, cacheManager7, cacheManager9);
+
+    // When the data is cached at once
+    aCaches.forEach(c -> await(c.putAll(Map.of(oneKey1, oneValue1, oneKey2, oneValue2, oneKey3, oneValue3))));
+    cCaches.forEach(c -> await(c.putAll(Map.of(complexKey1, complexValue1, complexKey2, complexValue2))));
+
+    // Then the data should be retrievable at once, without the uncached keys
+    aCaches.forEach(c -> assertEquals(Map.of(oneKey1, oneValue1, oneKey2, oneValue2, oneKey3, oneValue3), await(c.getAll(List.of(oneKey1, oneKey2, oneKey3, oneKey4))), format("Cache %d", aCaches.indexOf(c)+1)));
+    cCaches.forEach(c -> assertEquals(Map.of(complexKey1, complexValue1, complexKey2, complexValue2), await(c.getAll(List.of(complexKey1, complexKey2))), format("Cache %d", cCaches.indexOf(c)+1)));
+    assertValuesPresent(aCaches, Map.of(oneKey1, oneValue1, oneKey2, oneValue2, oneKey3, oneValue3));
+
+    // And removed data shouldn't
+    aCaches.forEach(c -> await(c.removeAll(List.of(oneKey1, oneKey3))));
+    assertKeysAbsent(aCaches, List.of(oneKey1, oneKey3));
+    assertKeysPresent(aCaches, List.of(oneKey2));
+    aCaches.forEach(c -> assertEquals(Map.of(oneKey2, oneValue2), await(c.getAll(List.of(oneKey1, oneKey2, oneKey3))), format("Cache %d", aCaches.indexOf(c)+1)));
+  }
+
+  /**
+   * Scenario: Many keys should be retrievable, streamable and clearable page by page
+   */
+  @Test
+  void manyKeysShouldBeScannedPageByPage() {
+    // Given caches, some scanning only a few keys per round trip, and many entries
+    List<Cache<Integer, Integer>> eCaches = setupCaches(CACHE_E, Integer.class, Integer.class, cacheManager1, cacheManager4, cacheManager5, cacheManager7, cacheManager9);
+    Map<Integer, Integer> data = IntStream.range(0, 100).boxed().collect(Collectors.toMap(i -> i, i -> i * 10));
+
+    // When the data is cached
+    eCaches.forEach(c -> await(c.putAll(data)));
+
+    // Then all keys should be retrievable
+    eCaches.forEach(c -> assertEquals(data.keySet(), new HashSet<>(await(c.keys())), format("Cache %d", eCaches.indexOf(c)+1)));
+
+    // And streamable
+    eCaches.forEach(c -> {
+      Set<Integer> keys = ConcurrentHashMap.newKeySet();
+      await(c.streamKeys(keys::add));
+      assertEquals(data.keySet(), keys, format("Cache %d", eCaches.indexOf(c)+1));
+    });
+
+    // And clearable
+    eCaches.forEach(c -> await(c.clear()));
+    eCaches.forEach(c -> assertTrue(await(c.keys()).isEmpty(), format("Cache %d", eCaches.indexOf(c)+1)));
+  }
+
+  /**
+   * Scenario: Near caches should serve hot keys from the local tier and read and write through to the remote tier
+   */
+  @Test
+  void nearCachesShouldServeFromLocalTier() {
+    // Given a near cache and a remote cache sharing the remote tier
+    Cache<String, Integer> nearCache = cacheManager7.getAsAsync(CACHE_D, String.class, Integer.class);
+    Cache<String, Integer> remoteCache = cacheManager4.getAsAsync(CACHE_D, String.class, Integer.class);
+
+    // When data is cached remotely
+    await(remoteCache.put(oneKey3, oneValue3));
+
+    // Then the near cache should read it through
+    assertEquals(oneValue3, await(nearCache.get(oneKey3)));
+
+    // And keep serving it from its local tier
+    await(remoteCache.remove(oneKey3));
+    assertFalse(await(remoteCache.containsKey(oneKey3)));
+    assertEquals(oneValue3, await(nearCache.get(oneKey3)));
+
+    // And write data through to the remote tier
+    await(nearCache.put(oneKey4, oneValue4));
+    assertEquals(oneValue4, await(remoteCache.get(oneKey4)));
+    await(nearCache.remove(oneKey4));
+    assertFalse(await(remoteCache.containsKey(oneKey4)));
+    assertFalse(await(nearCache.containsKey(oneKey4)));
+  }
+
+  /**
+   * Scenario: Changes through the near cache of one node should invalidate the local tiers of other nodes
+   */
+  @Test
+  void nearCachesShouldInvalidateEachOther() {
+    // Given two nodes with near caches sharing the remote tier, both holding the data in their local tier
+    Cache<String, Integer> nearCache1 = cacheManager7.getAsAsync(CACHE_D, String.class, Integer.class);
+    Cache<String, Integer> nearCache2 = cacheManager8.getAsAsync(CACHE_D, String.class, Integer.class);
+    await(nearCache1.putAll(Map.of(oneKey1, oneValue1, oneKey2, oneValue2)));
+    assertEquals(Map.of(oneKey1, oneValue1, oneKey2, oneValue2), await(nearCache2.getAll(List.of(oneKey1, oneKey2))));
+
+    // When the data is changed through the first node
+    await(nearCache1.put(oneKey1, oneValue3));
+
+    // Then the second node should see the change before its local tier expires
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> oneValue3.equals(await(nearCache2.get(oneKey1))));
+
+    // And removals and clearing as well
+    await(nearCache1.remove(oneKey1));
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> !await(nearCache2.containsKey(oneKey1)));
+    await(nearCache1.clear());
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> !await(nearCache2.containsKey(oneKey2)));
+  }
+
+  /**
+   * Scenario: Concurrent misses of the same key should call the value supplier only once
+   */
+  @Test
+  void concurrentMissesShouldLoadOnce() {
+    // Given a cache and a slow value supplier
+    List<Cache<String, Integer>> dCaches = setupCaches(CACHE_D, String.class, Integer.class, cacheManager1, cacheManager4, cacheManager7, cacheManager9);
+    AtomicInteger supplierCalls = new AtomicInteger();
+    Supplier<CompletableFuture<Integer>> slowSupplier = () -> {
+      supplierCalls.incrementAndGet();
+      return supplyAsync(() -> {
+        sleep(200);
+        return oneValue1;
+      });
+    };
+
+    dCaches.forEach(c -> {
+      supplierCalls.set(0);
+      await(c.remove(oneKey1));
+
+      // When many callers get through the same missing key at once
+      List<CompletableFuture<Integer>> values = IntStream.range(0, 10)
+        .mapToObj(i -> c.getThroughFuture(oneKey1, slowSupplier))
+        .collect(Collectors.toList());
+
+      // Then the supplier should be called once and every caller should get its value
+      values.forEach(v -> assertEquals(oneValue1, await(v), format("Cache %d", dCaches.indexOf(c)+1)));
+      assertEquals(1, supplierCalls.get(), format("Cache %d", dCaches.indexOf(c)+1));
+    });
+  }
+
+  /**
+   * Scenario: Concurrent misses of the same key on different nodes should call the value supplier only once
+   */
+  @Test
+  void concurrentMissesOfNodesShouldLoadOnce() {
+    // Given nodes sharing a remote cache with a load lock and a slow value supplier
+    RemoteCacheConfig lockingConfig = new RemoteCacheConfig().setTtlInSeconds(2).setLoadLockLeaseInMillis(1000).setHost("redis://localhost:6379/0");
+    List<Cache<String, Integer>> nodes = List.of(
+      cacheManager1.getAsAsync(CACHE_O, Context.ofDefaultConfig(lockingConfig), String.class, Integer.class),
+      cacheManager2.getAsAsync(CACHE_O, Context.ofDefaultConfig(lockingConfig), String.class, Integer.class),
+      cacheManager3.getAsAsync(CACHE_O, Context.ofDefaultConfig(lockingConfig), String.class, Integer.class)
+    );
+    AtomicInteger supplierCalls = new AtomicInteger();
+    Supplier<CompletableFuture<Integer>> slowSupplier = () -> {
+      supplierCalls.incrementAndGet();
+      return supplyAsync(() -> {
+        sleep(200);
+        return oneValue1;
+      });
+    };
+
+    // When all nodes get through the same missing key at once
+    List<CompletableFuture<Integer>> values = nodes.stream()
+      .map(node -> node.getThroughFuture(oneKey1, slowSupplier))
+      .collect(Collectors.toList());
+
+    // Then the supplier should be called once and every node should get its value
+    values.forEach(v -> assertEquals(oneValue1, await(v)));
+    assertEquals(1, supplierCalls.get());
+  }
+
+  /**
+   * Scenario: A node whose value supplier throws should release the load lock of the key right away
+   */
+  @Test
+  void throwingSupplierShouldReleaseLoadLock() {
+    // Given nodes sharing a remote cache with a load lock of a long lease
+    RemoteCacheConfig lockingConfig = new RemoteCacheConfig().setTtlInSeconds(2).setLoadLockLeaseInMillis(5000).setHost("redis://localhost:6379/0");
+    Cache<String, Integer> failingNode = cacheManager1.getAsAsync(CACHE_U, Context.ofDefaultConfig(lockingConfig), String.class, Integer.class);
+    Cache<String, Integer> otherNode = cacheManager2.getAsAsync(CACHE_U, Context.ofDefaultConfig(lockingConfig), String.class, Integer.class);
+
+    // When one node gets through a missing key with a supplier throwing instead of returning a failed future
+    Supplier<CompletableFuture<Integer>> throwingSupplier = () -> { throw new IllegalStateException("supplier failed"); };
+    assertThrows(RuntimeException.class, () -> await(failingNode.getThroughFuture(oneKey1, throwingSupplier)));
+
+    // Then the other node should load the key without waiting out the lease
+    long start = System.nanoTime();
+    assertEquals(oneValue1, await(otherNode.getThroughFuture(oneKey1, () -> completedFuture(oneValue1))));
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+  }
+
+  /**
+   * Scenario: Caches writing behind should coalesce writes and flush them after a delay or on close
+   */
+  @Test
+  void cachesWritingBehindShouldCoalesceWrites() {
+    // Given a remote cache writing behind and another node reading the same remote cache
+    RemoteCacheConfig writeBehindConfig = new RemoteCacheConfig().setTtlInSeconds(2).setWriteBehindDelayInMillis(500).setHost("redis://localhost:6379/0");
+    Cache<String, Integer> writer = cacheManager1.getAsAsync(CACHE_P, Context.ofDefaultConfig(writeBehindConfig), String.class, Integer.class);
+    Cache<String, Integer> reader = cacheManager2.getAsAsync(CACHE_P, Context.ofDefaultConfig(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis://localhost:6379/0")), String.class, Integer.class);
+    await(reader.put(oneKey2, oneValue2));
+
+    // When the writer overwrites a key and removes another
+    await(writer.put(oneKey1, oneValue2));
+    await(writer.put(oneKey1, oneValue1));
+    await(writer.remove(oneKey2));
+
+    // Then the writer should read its writes right away, while they are queued
+    assertEquals(oneValue1, await(writer.get(oneKey1)));
+    assertNull(await(writer.get(oneKey2)));
+    assertEquals(2, cacheManager1.getStatistics(CACHE_P).getWriteBehindDepth());
+
+    // And the other node should not see them before they are flushed
+    assertNull(await(reader.get(oneKey1)));
+    assertEquals(oneValue2, await(reader.get(oneKey2)));
+
+    // And the other node should see the last writes, flushed at once, after the delay
+    org.awaitility.Awaitility.await().atMost(1, TimeUnit.SECONDS).until(() -> oneValue1.equals(await(reader.get(oneKey1))) && await(reader.get(oneKey2)) == null);
+    CacheStatistics.Snapshot statistics = cacheManager1.getStatistics(CACHE_P);
+    assertEquals(0, statistics.getWriteBehindDepth());
+    assertEquals(1, statistics.getLatencies().get(Operation.FLUSH).getCount());
+
+    // When a writer closes before the delay passed
+    CacheManager closingManager = new CacheManager(writeBehindConfig);
+    await(closingManager.getAsAsync(CACHE_P, String.class, Integer.class).put(oneKey2, oneValue1));
+    closingManager.close();
+
+    // Then its queued write should have been flushed
+    assertEquals(oneValue1, await(reader.get(oneKey2)));
+  }
+
+  /**
+   * Scenario: Caches should load and write through the loader and writer registered for them, loading all missing keys at once
+   */
+  @Test
+  void cachesShouldLoadAndWriteThroughRegisteredLoaderAndWriter() {
+    // Given a source of values, a loader and writer of it and caches, one local and one remote, registered with them
+    Map<String, Integer> source = new ConcurrentHashMap<>(Map.of(oneKey2, oneValue2, oneKey3, oneValue3));
+    List<Collection<String>> loadAllCalls = new CopyOnWriteArrayList<>();
+    CacheLoader<String, Integer> loader = new CacheLoader<>() {
+      @Override
+      public Integer load(String key) {
+        return source.get(key);
+      }
+
+      @Override
+      public Map<String, Integer> loadAll(Collection<String> keys) {
+        loadAllCalls.add(Set.copyOf(keys));
+        return keys.stream().filter(source::containsKey).collect(Collectors.toMap(key -> key, source::get));
+      }
+    };
+    CacheWriter<String, Integer> writer = new CacheWriter<>() {
+      @Override
+      public void write(String key, Integer value) {
+        source.put(key, value);
+      }
+
+      @Override
+      public void delete(String key) {
+        source.remove(key);
+      }
+    };
+    List<Cache<String, Integer>> qCaches = List.of(
+      cacheManager1.getAsAsync(CACHE_Q, Context.builder().loader(loader).writer(writer).build(), String.class, Integer.class),
+      cacheManager2.getAsAsync(CACHE_Q, Context.builder().defaultConfig(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis://localhost:6379/0")).loader(loader).writer(writer).build(), String.class, Integer.class)
+    );
+
+    qCaches.forEach(c -> {
+      String cache = format("Cache %d", qCaches.indexOf(c)+1);
+      loadAllCalls.clear();
+
+      // When a value is put and many keys are read through, some of them cached, some in the source, one in neither
+      await(c.put(oneKey1, oneValue1));
+      Map<String, Integer> values = await(c.getAllThrough(List.of(oneKey1, oneKey2, oneKey3, oneKey4)));
+
+      // Then the put value should be written to the source
+      assertEquals(oneValue1, source.get(oneKey1), cache);
+
+      // And the missing keys should be loaded with one call, the cache populated with the loaded values
+      assertEquals(Map.of(oneKey1, oneValue1, oneKey2, oneValue2, oneKey3, oneValue3), values, cache);
+      assertEquals(List.of(Set.of(oneKey2, oneKey3, oneKey4)), loadAllCalls, cache);
+      assertEquals(oneValue3, await(c.get(oneKey3)), cache);
+
+      // And single keys should be read through the loader
+      source.put(oneKey4, oneValue4);
+      assertEquals(oneValue4, await(c.getThrough(oneKey4)), cache);
+
+      // And removed keys should be deleted from the source
+      await(c.removeAll(List.of(oneKey1, oneKey2, oneKey3, oneKey4)));
+      assertTrue(source.isEmpty(), cache);
+      source.putAll(Map.of(oneKey2, oneValue2, oneKey3, oneValue3));
+    });
+
+    // And caches without loader should refuse to read through without value supplier, by failed futures
+    Cache<String, Integer> withoutLoader = cacheManager3.getAsAsync(CACHE_Q, String.class, Integer.class);
+    assertInstanceOf(IllegalStateException.class, assertDoesNotThrow(() -> withoutLoader.getAllThrough(List.of(oneKey1))).exceptionNow());
+    assertInstanceOf(IllegalStateException.class, assertDoesNotThrow(() -> withoutLoader.getThrough(oneKey1)).exceptionNow());
+  }
+
+  /**
+   * Scenario: Local caches should snapshot their entries and restore them with the rest of their ttl on startup
+   */
+  @Test
+  void localCachesShouldRestoreFromSnapshot() throws IOException {
+    // Given a local cache snapshotting every second
+    LocalCacheConfig config = new LocalCacheConfig().setHeap(10).setTtlInSeconds(60).setSnapshotIntervalInSeconds(1)
+      .setDiskDirectory(Files.createTempDirectory("caja").toString());
+    CacheManager cacheManager = new CacheManager(config);
+    Cache<String, Integer> cache = cacheManager.getAsAsync(CACHE_R, String.class, Integer.class);
+    Path snapshot = Path.of(config.getDiskDirectory(), "snapshots", URLEncoder.encode(CACHE_R, StandardCharsets.UTF_8) + ".snapshot");
+
+    // When entries are put, one with a short ttl, and a snapshot is taken
+    await(cache.put(oneKey1, oneValue1));
+    await(cache.put(oneKey2, oneValue2, Duration.ofSeconds(4)));
+    org.awaitility.Awaitility.await().atMost(3, TimeUnit.SECONDS).until(() -> Files.exists(snapshot));
+
+    // Then a cache started meanwhile should restore them, the short lived one for the rest of its ttl only
+    CacheManager startedCacheManager = new CacheManager(config);
+    Cache<String, Integer> startedCache = startedCacheManager.getAsAsync(CACHE_R, String.class, Integer.class);
+    assertEquals(Map.of(oneKey1, oneValue1, oneKey2, oneValue2), await(startedCache.getAll(List.of(oneKey1, oneKey2))));
+    org.awaitility.Awaitility.await().atMost(4, TimeUnit.SECONDS).until(() -> Objects.isNull(await(startedCache.get(oneKey2))));
+    startedCacheManager.close();
+
+    // And entries put last should be snapshot on close and restored after a restart
+    await(cache.put(oneKey3, oneValue3));
+    cacheManager.close();
+    CacheManager restartedCacheManager = new CacheManager(config);
+    assertEquals(oneValue3, await(restartedCacheManager.getAsAsync(CACHE_R, String.class, Integer.class).get(oneKey3)));
+    restartedCacheManager.close();
+  }
+
+  /**
+   * Scenario: Remote caches should store complex keys hashed and still list them
+   */
+  @Test
+  void remoteCachesShouldHashComplexKeys() {
+    // Given a remote and a near cache storing complex keys hashed
+    List<Cache<ComplexKey, ComplexValue>> sCaches = List.of(
+      cacheManager1.getAsAsync(CACHE_S, Context.ofDefaultConfig(new RemoteCacheConfig().setHashKeys(true).setTtlInSeconds(2).setHost("redis://localhost:6379/0")), ComplexKey.class, ComplexValue.class),
+      cacheManager2.getAsAsync(CACHE_S, Context.ofDefaultConfig(new NearCacheConfig().setLocal(new LocalCacheConfig().setHeap(10).setTtlInSeconds(2)).setHashKeys(true).setTtlInSeconds(2).setHost("redis://localhost:6379/0")), ComplexKey.class, ComplexValue.class)
+    );
+
+    sCaches.forEach(c -> {
+      // When complex entries are put
+      await(c.putAll(Map.of(complexKey1, complexValue1, complexKey2, complexValue2)));
+
+      // Then they should be readable by key and their keys listed
+      assertEquals(complexValue1, await(c.get(complexKey1)));
+      assertEquals(Map.of(complexKey1, complexValue1, complexKey2, complexValue2), await(c.getAll(List.of(complexKey1, complexKey2))));
+      assertCollectionEquals(List.of(complexKey1, complexKey2), await(c.keys()));
+      List<ComplexKey> streamed = new CopyOnWriteArrayList<>();
+      await(c.streamKeys(streamed::add));
+      assertCollectionEquals(List.of(complexKey1, complexKey2), streamed);
+
+      // And conditional writes should compare values as usual
+      assertEquals(complexValue1, await(c.putIfAbsent(complexKey1, complexValue2)));
+      assertTrue(await(c.replace(complexKey1, complexValue1, complexValue2)));
+      assertTrue(await(c.remove(complexKey1, complexValue2)));
+      assertFalse(await(c.containsKey(complexKey1)));
+
+      // And clearing should remove them
+      await(c.clear());
+      assertEquals(0, await(c.keys()).size());
+    });
+  }
+
   private static final String CACHE_A = "cache A " + now().getNano();
   private static final String CACHE_B = "cache B " + now().getNano();
   private static final String CACHE_C = "cache C " + now().getNano();
+  private static final String CACHE_D = "cache D " + now().getNano();
+  private static final String CACHE_E = "cache E " + now().getNano();
+  private static final String CACHE_F = "cache F " + now().getNano();
+  private static final String CACHE_G = "cache G " + now().getNano();
+  private static final String CACHE_H = "cache H " + now().getNano();
+  private static final String CACHE_I = "cache I " + now().getNano();
+  private static final String CACHE_J = "cache J " + now().getNano();
+  private static final String CACHE_K = "cache K " + now().getNano();
+  private static final String CACHE_L = "cache L " + now().getNano();
+  private static final String CACHE_M = "cache M " + now().getNano();
+  private static final String CACHE_N = "cache N " + now().getNano();
+  private static final String CACHE_O = "cache O " + now().getNano();
+  private static final String CACHE_P = "cache P " + now().getNano();
+  private static final String CACHE_Q = "cache Q " + now().getNano();
+  private static final String CACHE_R = "cache R " + now().getNano();
+  private static final String CACHE_S = "cache S " + now().getNano();
+  private static final String CACHE_T = "cache T " + now().getNano();
+  private static final String CACHE_U = "cache U " + now().getNano();
+  private static final String CACHE_V = "cache V " + now().getNano();
   private CacheManager cacheManager1;
   private CacheManager cacheManager2;
   private CacheManager cacheManager3;
   private CacheManager cacheManager4;
   private CacheManager cacheManager5;
   private CacheManager cacheManager6;
+  private CacheManager cacheManager7;
+  private CacheManager cacheManager8;
+  private CacheManager cacheManager9;
   private String oneKey1 = "ok1";
   private String oneKey2 = "ok2";
   private String oneKey3 = "ok3";
@@ -299,9 +1077,17 @@ class CacheTestAsync {
     cacheManager3 = new CacheManager(new CacheManagerConfig().setCacheConfigurations(Map.of(CACHE_A, new LocalCacheConfig().setTtlInSeconds(1).setHeap(5))));
     cacheManager4 = new CacheManager(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis://localhost:6379/0").setLogStatistics(LogLevel.INFO));
     cacheManager5 = new CacheManager(new CacheManagerConfig().setCacheConfigurations(
-      Map.of(CACHE_A, new RemoteCacheConfig().setTtlInSeconds(1).setHost("redis://localhost:6379/0"))
+      Map.of(
+        CACHE_A, new RemoteCacheConfig().setTtlInSeconds(1).setHost("redis://localhost:6379/0"),
+        CACHE_E, new RemoteCacheConfig().setScanCount(10).setTtlInSeconds(2).setHost("redis://localhost:6379/0"),
+        CACHE_F, new RemoteCacheConfig().setValueSerializer(new KryoValueSerializer(ComplexValue.class, Nested.class, BigDecimal.class, LocalDateTime.class)).setTtlInSeconds(2).setHost("redis://localhost:6379/0"),
+        CACHE_G, new RemoteCacheConfig().setCompressionThresholdInBytes(100).setTtlInSeconds(2).setHost("redis://localhost:6379/0")
+      )
     ));
     cacheManager6 = new CacheManager(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis-sentinel://localhost:26379/0#mymaster").setReadFrom(RemoteCacheConfig.ReadFrom.REPLICA));
+    cacheManager7 = new CacheManager(new NearCacheConfig().setLocal(new LocalCacheConfig().setHeap(10).setTtlInSeconds(2)).setTtlInSeconds(2).setHost("redis://localhost:6379/0"));
+    cacheManager8 = new CacheManager(new NearCacheConfig().setLocal(new LocalCacheConfig().setHeap(10).setTtlInSeconds(2)).setTtlInSeconds(2).setHost("redis://localhost:6379/0"));
+    cacheManager9 = new CacheManager(new RemoteCacheConfig().setTtlInSeconds(2).setHost("redis://localhost:7000").setCluster(true));
   }
 
   @AfterEach
@@ -312,6 +1098,9 @@ class CacheTestAsync {
     cacheManager4.close();
     cacheManager5.close();
     cacheManager6.close();
+    cacheManager7.close();
+    cacheManager8.close();
+    cacheManager9.close();
   }
 
   private <K, V> List<Cache<K, V>> setupCaches(String name, Class<K> keyType, Class<V> valueType, CacheManager... managers) {
@@ -384,6 +1173,11 @@ class CacheTestAsync {
     );
   }
 
+  private static void sleep(long millis) {
+    try { Thread.sleep(millis); }
+    catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+  }
+
   private boolean allKeysAbsent(Map<Cache, ?> cachesAndKeys) {
     return cachesAndKeys.entrySet().stream()
       .map(e -> allKeysAbsent(List.of(e.getKey()), List.of(e.getValue())))
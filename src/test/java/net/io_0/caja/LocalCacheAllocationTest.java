@@ -0,0 +1,72 @@
+package net.io_0.caja;
+
+import com.sun.management.ThreadMXBean;
+import net.io_0.caja.configuration.LocalCacheConfig;
+import net.io_0.caja.sync.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static java.util.Objects.nonNull;
+import static net.io_0.caja.configuration.CacheConfig.LogLevel;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Hits of local sync caches allocate nothing, see {@code LocalCacheGetBenchmark}. Each hot path is run until compiled,
+ * then the bytes the test thread allocates are measured over many more calls. The tolerance absorbs one-off allocations
+ * like deoptimizations, any per call allocation exceeds it.
+ */
+class LocalCacheAllocationTest {
+  private static final int WARMUP_CALLS = 200_000;
+  private static final int MEASURED_CALLS = 100_000;
+  private static final long TOLERATED_BYTES = MEASURED_CALLS / 10;
+  private static final String KEY = "key";
+  private static final Supplier<String> SUPPLIER = () -> "loaded value";
+
+  private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private CacheManager cacheManager;
+  private Cache<String, String> cache;
+
+  @BeforeEach
+  void setup() {
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+    // statistics are logged at a level the logger doesn't log, as usual in production
+    cacheManager = new CacheManager(new LocalCacheConfig().setHeap(100).setTtlInSeconds(3600).setLogStatistics(LogLevel.TRACE));
+    cache = cacheManager.getAsSync("allocation", String.class, String.class);
+    cache.put(KEY, "value");
+  }
+
+  @AfterEach
+  void shutdown() {
+    if (nonNull(cacheManager)) cacheManager.close();
+  }
+
+  @Test
+  void getHitAllocatesNothing() {
+    assertAllocationFree(() -> cache.get(KEY));
+  }
+
+  @Test
+  void getThroughHitAllocatesNothing() {
+    assertAllocationFree(() -> cache.getThrough(KEY, SUPPLIER));
+  }
+
+  @Test
+  void containsKeyHitAllocatesNothing() {
+    assertAllocationFree(() -> cache.containsKey(KEY));
+  }
+
+  private void assertAllocationFree(Runnable hit) {
+    for (int i = 0; i < WARMUP_CALLS; i++) hit.run();
+
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < MEASURED_CALLS; i++) hit.run();
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertTrue(allocated <= TOLERATED_BYTES, allocated + " bytes allocated by " + MEASURED_CALLS + " hits");
+  }
+}
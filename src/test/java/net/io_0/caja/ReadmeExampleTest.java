@@ -4,6 +4,7 @@ import net.io_0.caja.sync.Cache;
 import net.io_0.caja.configuration.CacheManagerConfig;
 import net.io_0.caja.configuration.LocalCacheConfig;
 import net.io_0.caja.configuration.RemoteCacheConfig;
+import net.io_0.caja.statistics.CacheStatistics;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -56,12 +57,16 @@ class ReadmeExampleTest {
     aCache.put(1, List.of("one", "eins", "一"));
     System.out.println(aCache.get(1)); // prints '[one, eins, 一]'
 
+    Map<String, CacheStatistics.Snapshot> statistics = cacheManager1.getStatistics();
+    System.out.println(statistics.get("short term cache").getHits()); // prints '3'
+
     // Then
     assertFalse(shortTermCache.containsKey(1));
     assertEquals("two", shortTermCache.get(2));
     assertEquals("two", shortTermCache.getThrough(2, () -> "three"));
     assertEquals("two", await(shortTermCacheAsync.get(2)));
     assertEquals("[one, eins, 一]", aCache.get(1).toString());
+    assertEquals(3, statistics.get("short term cache").getHits());
     org.awaitility.Awaitility.await().atMost(2, TimeUnit.SECONDS).until(() -> Objects.equals("three", shortTermCache.getThrough(2, () -> "three")));
   }
 }
@@ -0,0 +1,61 @@
+package net.io_0.caja;
+
+import net.io_0.caja.async.Cache;
+import net.io_0.caja.statistics.CacheStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final Queue<CompletableFuture<Void>> pendingPutAlls = new ConcurrentLinkedQueue<>();
+
+  @AfterEach
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  void rewriteWhileFlushInFlight() {
+    WriteBehind<String, Integer> writeBehind = new WriteBehind<>(slowCache(), scheduler, Duration.ofHours(1), 10, 10, new CacheStatistics());
+
+    writeBehind.put("key", 1);
+    writeBehind.flush();
+    CompletableFuture<Void> firstFlush = pendingPutAlls.poll();
+
+    writeBehind.put("key", 2);
+    CompletableFuture<Void> flushed = writeBehind.flush();
+    CompletableFuture<Void> secondFlush = pendingPutAlls.poll();
+
+    firstFlush.complete(null);
+    assertEquals(2, writeBehind.lookup("key").getValue());
+    assertEquals(1, writeBehind.depth());
+
+    secondFlush.complete(null);
+    flushed.join();
+    assertNull(writeBehind.lookup("key"));
+    assertEquals(0, writeBehind.depth());
+  }
+
+  /**
+   * @return a cache whose putAll calls complete once the test completes the future they left in {@link #pendingPutAlls}
+   */
+  @SuppressWarnings("unchecked")
+  private Cache<String, Integer> slowCache() {
+    return (Cache<String, Integer>) Proxy.newProxyInstance(Cache.class.getClassLoader(), new Class<?>[] { Cache.class }, (proxy, method, args) -> {
+      if (!method.getName().equals("putAll")) throw new UnsupportedOperationException(method.getName());
+      CompletableFuture<Void> putAll = new CompletableFuture<>();
+      pendingPutAlls.add(putAll);
+      return putAll;
+    });
+  }
+}
@@ -0,0 +1,14 @@
+package net.io_0.caja.models;
+
+import lombok.*;
+
+/**
+ * A value without value equality, copies of it never equal each other.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Getter @Setter
+public class Counter {
+  private Integer count;
+}
@@ -1,8 +1,13 @@
 package net.io_0.caja.redis;
 
+import net.io_0.caja.models.ComplexKey;
+import net.io_0.caja.models.Nested;
+import net.io_0.caja.serialization.JsonValueSerializer;
 import org.junit.jupiter.api.Test;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,6 +21,52 @@ class JsonObjectCodecTest {
     encodeDecodeTest(UUID.randomUUID(), UUID.class);
     encodeDecodeTest(12, Integer.class);
     encodeDecodeTest(24L, Long.class);
+    encodeDecodeTest((short) 7, Short.class);
+    encodeDecodeTest((byte) 3, Byte.class);
+    encodeDecodeTest('/', Character.class);
+    encodeDecodeTest(Instant.parse("2024-02-29T12:00:00.123456Z"), Instant.class);
+    encodeDecodeTest(Color.GREEN, Color.class);
+    encodeDecodeTest(new Point(-1, 2L, true, 0.5), Point.class);
+  }
+
+  @Test
+  void encodeSimpleKeysAsTextAfterCacheName() {
+    assertEquals(CACHE_NAME + "/GREEN", encodeToString(Color.GREEN, Color.class));
+    assertEquals(CACHE_NAME + "/-1:2:true:0.5", encodeToString(new Point(-1, 2L, true, 0.5), Point.class));
+    assertEquals(CACHE_NAME + "/*", new JsonObjectCodec<>(CACHE_NAME, Point.class, Object.class).keyPattern());
+    assertEquals(CACHE_NAME + "/*", new JsonObjectCodec<>(CACHE_NAME, Instant.class, Object.class).keyPattern());
+    assertEquals("{\"ns\":\"" + CACHE_NAME + "\",*", new JsonObjectCodec<>(CACHE_NAME, ComplexKey.class, Object.class).keyPattern());
+  }
+
+  @Test
+  void hashComplexKeysAndEmbedThemInValues() {
+    JsonObjectCodec<ComplexKey, KeyOrWildcard<ComplexKey>, Integer> codec = new JsonObjectCodec<>(CACHE_NAME, ComplexKey.class, Integer.class, new JsonValueSerializer(), true);
+    ComplexKey key = new ComplexKey("k1", 1, new Nested(true, List.of(1, 2, 3)));
+    ComplexKey otherKey = new ComplexKey("k2", 2, new Nested(false, List.of()));
+
+    String encodedKey = StandardCharsets.UTF_8.decode(codec.encodeKey(KeyOrWildcard.key(key))).toString();
+    assertTrue(codec.isHashingKeys());
+    assertTrue(encodedKey.startsWith(CACHE_NAME + "#/"), encodedKey);
+    assertEquals((CACHE_NAME + "#/").length() + 22, encodedKey.length());
+    assertEquals(encodedKey.length(), codec.encodeKey(KeyOrWildcard.key(otherKey)).remaining());
+    assertEquals(CACHE_NAME + "#/*", codec.keyPattern());
+
+    // text keys of the same cache name neither collide with hashed keys nor match them
+    String hashedText = encodedKey.substring(encodedKey.indexOf('/') + 1);
+    assertNotEquals(encodedKey, encodeToString("#" + hashedText, String.class));
+    assertNotEquals(encodedKey, encodeToString("#/" + hashedText, String.class));
+    assertFalse(encodedKey.startsWith(CACHE_NAME + "/"), encodedKey);
+
+    ByteBuffer value = codec.encodeValue(key, 42);
+    assertEquals(key, codec.decodeEmbeddedKey(value));
+    assertEquals(42, codec.decodeValue(key, value.duplicate()));
+    assertNull(codec.decodeValue(otherKey, value.duplicate()));
+
+    assertFalse(new JsonObjectCodec<>(CACHE_NAME, String.class, Integer.class, new JsonValueSerializer(), true).isHashingKeys());
+  }
+
+  <K> String encodeToString(K key, Class<K> type) {
+    return StandardCharsets.UTF_8.decode(new JsonObjectCodec<>(CACHE_NAME, type, Object.class).encodeKey(KeyOrWildcard.key(key))).toString();
   }
 
   <K> void encodeDecodeTest(K key, Class<K> type) {
@@ -27,4 +78,8 @@ class JsonObjectCodecTest {
     encoded.rewind();
     assertEquals(key, codec.decodeKey(encoded).getKey());
   }
+
+  enum Color { RED, GREEN }
+
+  record Point(int x, long y, boolean visible, double weight) {}
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package net.io_0.caja.redis;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisSyncWrapperTest {
+  private static final byte[][] KEYS = Stream.of("{user}1", "cache/a", "{user}2", "cache/b", "{user}3")
+    .map(key -> key.getBytes(StandardCharsets.UTF_8))
+    .toArray(byte[][]::new);
+
+  @Test
+  void slotGroupsShouldGroupKeysOfTheSameSlot() {
+    Collection<List<Integer>> groups = RedisSyncWrapper.slotGroups(KEYS, true);
+
+    // keys sharing a hash tag share their slot, so they are grouped, in their original order
+    assertTrue(groups.contains(List.of(0, 2, 4)));
+
+    // every group holds keys of one slot only, and every position is in exactly one group
+    groups.forEach(group -> assertEquals(1, group.stream().map(i -> SlotHash.getSlot(KEYS[i])).distinct().count(), group.toString()));
+    List<Integer> positions = groups.stream().flatMap(List::stream).sorted().collect(toList());
+    assertEquals(List.of(0, 1, 2, 3, 4), positions);
+    groups.forEach(group -> assertEquals(group.stream().sorted().collect(toList()), group));
+  }
+
+  @Test
+  void slotGroupsShouldKeepAllKeysTogetherWithoutCluster() {
+    Collection<List<Integer>> groups = RedisSyncWrapper.slotGroups(KEYS, false);
+
+    assertEquals(List.of(List.of(0, 1, 2, 3, 4)), new ArrayList<>(groups));
+  }
+}
@@ -0,0 +1,69 @@
+package net.io_0.caja.serialization;
+
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressingValueSerializerTest {
+  /**
+   * Stores byte arrays as they are, like Kryo stores a value whose class ID is written as {@code 0xFF 0x01}.
+   */
+  private static final ValueSerializer BYTES = new ValueSerializer() {
+    @Override
+    public ByteBuffer serialize(Object value) {
+      return ByteBuffer.wrap((byte[]) value);
+    }
+
+    @Override
+    public Object deserialize(ByteBuffer bytes, Class<?> type, Class<?>... subTypes) {
+      byte[] value = new byte[bytes.remaining()];
+      bytes.duplicate().get(value);
+      return value;
+    }
+  };
+
+  @Test
+  void valuesStartingWithTheHeaderShouldBeReadAsWritten() {
+    byte[] classId = { (byte) 0xFF, 0x01, 0, 0, 0, 2, 42 };
+    byte[] headerOnly = { (byte) 0xFF };
+    byte[] incompressible = new byte[64];
+    new Random(7).nextBytes(incompressible);
+    incompressible[0] = (byte) 0xFF;
+
+    for (Integer threshold : Arrays.asList(null, 1, 32)) {
+      CompressionStatistics statistics = new CompressionStatistics();
+      CompressingValueSerializer serializer = new CompressingValueSerializer(BYTES, threshold, statistics);
+
+      assertArrayEquals(classId, roundTrip(serializer, classId), "threshold " + threshold);
+      assertArrayEquals(headerOnly, roundTrip(serializer, headerOnly), "threshold " + threshold);
+      assertArrayEquals(incompressible, roundTrip(serializer, incompressible), "threshold " + threshold);
+      assertEquals(0, statistics.getCompressedValues(), "threshold " + threshold);
+    }
+  }
+
+  @Test
+  void largeValuesShouldBeCompressed() {
+    byte[] large = new byte[1000];
+    Arrays.fill(large, (byte) 0xFF);
+    CompressionStatistics statistics = new CompressionStatistics();
+    CompressingValueSerializer serializer = new CompressingValueSerializer(BYTES, 100, statistics);
+
+    assertArrayEquals(large, roundTrip(serializer, large));
+    assertEquals(1, statistics.getCompressedValues());
+    assertTrue(statistics.getStoredBytes() < large.length);
+  }
+
+  @Test
+  void valuesOfAnUnknownFormatShouldBeRejected() {
+    CompressingValueSerializer serializer = new CompressingValueSerializer(BYTES, null, new CompressionStatistics());
+
+    assertThrows(IllegalStateException.class, () -> serializer.deserialize(ByteBuffer.wrap(new byte[] { (byte) 0xFF, 0x02 }), byte[].class));
+  }
+
+  private static byte[] roundTrip(CompressingValueSerializer serializer, byte[] value) {
+    return (byte[]) serializer.deserialize(serializer.serialize(value), byte[].class);
+  }
+}